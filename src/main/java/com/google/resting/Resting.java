@@ -16,12 +16,13 @@
 
 package com.google.resting;
 
-import com.google.gson.Gson;
+import com.google.resting.async.listener.RequestProgressListener;
 import com.google.resting.atom.AtomFeed;
 import com.google.resting.component.EncodingTypes;
 import com.google.resting.component.RequestParams;
 import com.google.resting.component.Verb;
 import com.google.resting.component.content.ContentType;
+import com.google.resting.component.content.StreamingUploadEntity;
 import com.google.resting.component.impl.ServiceResponse;
 import com.google.resting.component.impl.json.JSONAlias;
 import com.google.resting.component.impl.xml.XMLAlias;
@@ -31,13 +32,18 @@ import com.google.resting.method.get.GetHelper;
 import com.google.resting.method.post.PostHelper;
 import com.google.resting.method.put.PutHelper;
 import com.google.resting.rest.client.HttpContext;
+import com.google.resting.transform.GsonRegistry;
 import com.google.resting.transform.TransformationType;
 import org.apache.http.Header;
 import org.apache.http.entity.mime.content.ContentBody;
 
 import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static com.google.resting.component.EncodingTypes.UTF8;
 import static com.google.resting.helper.RestingHelper.executeAndTransform;
@@ -260,6 +266,47 @@ public final class Resting {
         return GetHelper.get(uri, port, requestParams, encoding, additionalHeaders, httpContext);
     }//get
 
+    /**
+     * Executes HTTP/HTTPS GET request without blocking the calling thread.
+     *
+     * @param url  Entire URI of the REST endpoint
+     * @param port Port of the REST endpoint
+     * @return {@link CompletableFuture} of the {@link ServiceResponse} object containing the entire REST response, the HTTP status code and the response headers.
+     */
+
+    public final static CompletableFuture<ServiceResponse> getAsync(String uri, int port) {
+        return RestingHelper.executeAsync(uri, port, null, Verb.GET, UTF8, null, null);
+    }//getAsync
+
+    /**
+     * Executes HTTP/HTTPS GET request without blocking the calling thread.
+     *
+     * @param baseURI       Base URI of the REST endpoint
+     * @param port          Port of the REST endpoint
+     * @param requestParams {@link RequestParams} object containing collection of parameters in key/ value pair for REST request
+     * @return {@link CompletableFuture} of the {@link ServiceResponse} object containing the entire REST response, the HTTP status code and the response headers.
+     */
+
+    public final static CompletableFuture<ServiceResponse> getAsync(String baseURI, int port, RequestParams requestParams) {
+        return RestingHelper.executeAsync(baseURI, port, requestParams, Verb.GET, UTF8, null, null);
+    }//getAsync
+
+    /**
+     * Executes HTTP/HTTPS GET request without blocking the calling thread.
+     *
+     * @param baseURI       Base URI of the REST endpoint
+     * @param port          Port of the REST endpoint
+     * @param requestParams {@link RequestParams} object containing collection of parameters in key/ value pair for REST request
+     * @param encoding      Message encoding in response
+     * @param inputHeaders  Additional response headers, as required by the client.
+     * @param httpContext   {@code HttpContext} object containing HTTP parameters. To be used to set connection timeout, proxy,  authentication etc.
+     * @return {@link CompletableFuture} of the {@link ServiceResponse} object containing the entire REST response, the HTTP status code and the response headers.
+     */
+
+    public final static CompletableFuture<ServiceResponse> getAsync(String baseURI, int port, RequestParams requestParams, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext) {
+        return RestingHelper.executeAsync(baseURI, port, requestParams, Verb.GET, encoding, additionalHeaders, httpContext);
+    }//getAsync
+
     /**
      * Executes HTTP/HTTPS POST request for a POST request with no content in the message body and returns ServiceResponse object which encapsulates the entire HTTP response as a String as well
      * as the response headers and the HTTP status code
@@ -288,6 +335,19 @@ public final class Resting {
         return PostHelper.post(baseURI, port, UTF8, requestParams, null, null);
     }//post
 
+    /**
+     * Executes HTTP/HTTPS POST request with HTML form data in the message body without blocking the calling thread.
+     *
+     * @param baseURI       Base URI of the REST endpoint
+     * @param port          Port of the REST endpoint
+     * @param requestParams {@link RequestParams} object containing collection of parameters in key/ value pair to be sent in the message body
+     * @return {@link CompletableFuture} of the {@link ServiceResponse} object containing the entire REST response, the HTTP status code and the response headers.
+     */
+
+    public final static CompletableFuture<ServiceResponse> postAsync(String baseURI, int port, RequestParams requestParams) {
+        return RestingHelper.executeAsync(baseURI, port, requestParams, Verb.POST, UTF8, null, null);
+    }//postAsync
+
     /**
      * Executes HTTP/HTTPS POST request with message String in the message body and returns ServiceResponse object which encapsulates the entire HTTP response as a String as well
      * as the response headers and the HTTP status code. This is the most commonly used form of POST method invocation. A typical
@@ -436,6 +496,44 @@ public final class Resting {
         return PostHelper.post(baseURI, port, multipartBody, requestParams, additionalHeaders, fileContentType, httpContext);
     }//post
 
+    /**
+     * Executes HTTP/HTTPS POST request which streams the file to the server instead of loading it into memory. The file
+     * is read through a {@link java.nio.channels.FileChannel} in chunks. Upload progress is reported to the
+     * {@link com.google.resting.async.listener.RequestProgressListener} of the {@code HttpContext}.
+     *
+     * @param baseURI           Base URI of the REST endpoint
+     * @param port              Port of the REST endpoint
+     * @param requestParams     {@link RequestParams} object containing collection of parameters in key/ value pair for REST request
+     * @param file              File to be posted
+     * @param fileContentType   Content type of the file
+     * @param additionalHeaders Additional response headers, as required by the client.
+     * @param httpContext       {@code HttpContext} object containing HTTP parameters. To be used to set connection timeout, proxy,  authentication etc.
+     * @return {@link ServiceResponse} object containing the entire REST response as a String, the HTTP status code and the response headers.
+     */
+    public final static ServiceResponse postStream(String baseURI, int port, RequestParams requestParams, Path file, ContentType fileContentType, List<Header> additionalHeaders, HttpContext httpContext) {
+        return PostHelper.post(baseURI, port, new StreamingUploadEntity(file, fileContentType, getRequestProgressListener(httpContext)), requestParams, additionalHeaders, httpContext);
+    }//postStream
+
+    /**
+     * Executes HTTP/HTTPS POST request which streams the body from an {@link InputStream} to the server. The body is sent
+     * with chunked transfer encoding if its length is not known. The supplier is asked for a new stream if the request is
+     * retried. Upload progress is reported to the {@link com.google.resting.async.listener.RequestProgressListener} of
+     * the {@code HttpContext}.
+     *
+     * @param baseURI             Base URI of the REST endpoint
+     * @param port                Port of the REST endpoint
+     * @param requestParams       {@link RequestParams} object containing collection of parameters in key/ value pair for REST request
+     * @param inputStreamSupplier Supplies the stream over the body to be posted
+     * @param contentLength       Length of the body, -1 if unknown
+     * @param contentType         Content type of the body
+     * @param additionalHeaders   Additional response headers, as required by the client.
+     * @param httpContext         {@code HttpContext} object containing HTTP parameters. To be used to set connection timeout, proxy,  authentication etc.
+     * @return {@link ServiceResponse} object containing the entire REST response as a String, the HTTP status code and the response headers.
+     */
+    public final static ServiceResponse postStream(String baseURI, int port, RequestParams requestParams, Supplier<InputStream> inputStreamSupplier, long contentLength, ContentType contentType, List<Header> additionalHeaders, HttpContext httpContext) {
+        return PostHelper.post(baseURI, port, new StreamingUploadEntity(inputStreamSupplier, contentLength, contentType, getRequestProgressListener(httpContext)), requestParams, additionalHeaders, httpContext);
+    }//postStream
+
     /**
      * Executes HTTP/HTTPS POST request for a Java object (which is converted into JSON) and returns ServiceResponse object which encapsulates the entire HTTP response as a String as well
      * as the response headers and the HTTP status code.
@@ -451,7 +549,7 @@ public final class Resting {
      * @return
      */
     public final static ServiceResponse postAsJSON(String baseURI, int port, RequestParams requestParams, Object objectToBePosted, List<Header> additionalHeaders, HttpContext httpContext) {
-        return PostHelper.post(new Gson().toJson(objectToBePosted), null, baseURI, port, requestParams, additionalHeaders, null, httpContext);
+        return PostHelper.post(GsonRegistry.getGson().toJson(objectToBePosted), null, baseURI, port, requestParams, additionalHeaders, null, httpContext);
     }
 
     /**
@@ -479,6 +577,19 @@ public final class Resting {
         return PutHelper.put(baseURI, UTF8, port, requestParams, null, null);
     }//put
 
+    /**
+     * Executes HTTP/HTTPS PUT request with HTML form data in the message body without blocking the calling thread.
+     *
+     * @param baseURI       Base URI of the REST endpoint
+     * @param port          Port of the REST endpoint
+     * @param requestParams {@link RequestParams} object containing collection of parameters in key/ value pair to be sent in the message body
+     * @return {@link CompletableFuture} of the {@link ServiceResponse} object containing the entire REST response, the HTTP status code and the response headers.
+     */
+
+    public final static CompletableFuture<ServiceResponse> putAsync(String baseURI, int port, RequestParams requestParams) {
+        return RestingHelper.executeAsync(baseURI, port, requestParams, Verb.PUT, UTF8, null, null);
+    }//putAsync
+
     /**
      * Executes HTTP/HTTPS PUT request and returns ServiceResponse object which encapsulates the entire HTTP response as a String as well
      * as the response headers and the HTTP status code
@@ -512,6 +623,41 @@ public final class Resting {
         return PutHelper.put(baseURI, encoding, port, requestParams, additionalHeaders, httpContext);
     }//put
 
+    /**
+     * Executes HTTP/HTTPS PUT request which streams the file to the server instead of loading it into memory. The file
+     * is read through a {@link java.nio.channels.FileChannel} in chunks. Upload progress is reported to the
+     * {@link com.google.resting.async.listener.RequestProgressListener} of the {@code HttpContext}.
+     *
+     * @param baseURI           Base URI of the REST endpoint
+     * @param port              Port of the REST endpoint
+     * @param file              File to be uploaded
+     * @param fileContentType   Content type of the file
+     * @param additionalHeaders Additional response headers, as required by the client.
+     * @param httpContext       {@code HttpContext} object containing HTTP parameters. To be used to set connection timeout, proxy,  authentication etc.
+     * @return {@link ServiceResponse} object containing the entire REST response as a String, the HTTP status code and the response headers.
+     */
+    public final static ServiceResponse putStream(String baseURI, int port, Path file, ContentType fileContentType, List<Header> additionalHeaders, HttpContext httpContext) {
+        return PutHelper.put(baseURI, port, new StreamingUploadEntity(file, fileContentType, getRequestProgressListener(httpContext)), additionalHeaders, httpContext);
+    }//putStream
+
+    /**
+     * Executes HTTP/HTTPS PUT request which streams the body from an {@link InputStream} to the server. The body is sent
+     * with chunked transfer encoding if its length is not known. The supplier is asked for a new stream if the request is
+     * retried.
+     *
+     * @param baseURI             Base URI of the REST endpoint
+     * @param port                Port of the REST endpoint
+     * @param inputStreamSupplier Supplies the stream over the body to be uploaded
+     * @param contentLength       Length of the body, -1 if unknown
+     * @param contentType         Content type of the body
+     * @param additionalHeaders   Additional response headers, as required by the client.
+     * @param httpContext         {@code HttpContext} object containing HTTP parameters. To be used to set connection timeout, proxy,  authentication etc.
+     * @return {@link ServiceResponse} object containing the entire REST response as a String, the HTTP status code and the response headers.
+     */
+    public final static ServiceResponse putStream(String baseURI, int port, Supplier<InputStream> inputStreamSupplier, long contentLength, ContentType contentType, List<Header> additionalHeaders, HttpContext httpContext) {
+        return PutHelper.put(baseURI, port, new StreamingUploadEntity(inputStreamSupplier, contentLength, contentType, getRequestProgressListener(httpContext)), additionalHeaders, httpContext);
+    }//putStream
+
     /**
      * Executes HTTP/HTTPS DELETE request and returns ServiceResponse object which encapsulates the entire HTTP response as a String as well
      * as the response headers and the HTTP status code.
@@ -539,6 +685,19 @@ public final class Resting {
         return DeleteHelper.delete(baseURI, port, requestParams, UTF8, null);
     }//delete
 
+    /**
+     * Executes HTTP/HTTPS DELETE request without blocking the calling thread.
+     *
+     * @param baseURI       Base URI of the REST endpoint
+     * @param port          Port of the REST endpoint
+     * @param requestParams {@link RequestParams} object containing collection of parameters in key/ value pair for REST request
+     * @return {@link CompletableFuture} of the {@link ServiceResponse} object containing the entire REST response, the HTTP status code and the response headers.
+     */
+
+    public final static CompletableFuture<ServiceResponse> deleteAsync(String baseURI, int port, RequestParams requestParams) {
+        return RestingHelper.executeAsync(baseURI, port, requestParams, Verb.DELETE, UTF8, null, null);
+    }//deleteAsync
+
     /**
      * Executes HTTP/HTTPS DELETE request and returns ServiceResponse object which encapsulates the entire HTTP response as a String as well
      * as the response headers and the HTTP status code.
@@ -573,6 +732,30 @@ public final class Resting {
         return DeleteHelper.delete(baseURI, port, requestParams, encoding, headers, httpContext);
     }//delete
 
+    /**
+     * Invokes a batch of requests and returns their responses in the original order. Requests are grouped by target
+     * host and port and executed over reused keep-alive connections, with at most
+     * {@link HttpContext#DEFAULT_MAX_CONNECTIONS_PER_ROUTE} requests in flight per host.
+     *
+     * @param builders {@link RestingBuilder} instances configured for the requests
+     * @return List of {@link ServiceResponse}, in the order of the builders. Failed requests have a null response.
+     */
+    public final static List<ServiceResponse> executeBatch(List<? extends RestingBuilder> builders) {
+        return RestingHelper.executeBatch(builders, HttpContext.DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+    }//executeBatch
+
+    /**
+     * Invokes a batch of requests and returns their responses in the original order. Requests are grouped by target
+     * host and port and executed over reused keep-alive connections.
+     *
+     * @param builders           {@link RestingBuilder} instances configured for the requests
+     * @param maxParallelPerHost Maximum number of requests in flight per host and port
+     * @return List of {@link ServiceResponse}, in the order of the builders. Failed requests have a null response.
+     */
+    public final static List<ServiceResponse> executeBatch(List<? extends RestingBuilder> builders, int maxParallelPerHost) {
+        return RestingHelper.executeBatch(builders, maxParallelPerHost);
+    }//executeBatch
+
     /**
      * Executes HTTP/HTTPS GET request and transforms the JSON response into list of target entity.
      * <p>
@@ -611,6 +794,23 @@ public final class Resting {
         return RestingHelper.executeAndTransform(baseURI, port, requestParams, Verb.GET, TransformationType.JSON, targetType, jsonAlias, UTF8, null, httpContext);
     }//getByJSON
 
+    /**
+     * Executes HTTP/HTTPS GET request without blocking the calling thread and transforms the JSON response into list of target entity.
+     *
+     * @param <T>           Target entity type
+     * @param url           Base URI of the REST endpoint
+     * @param port          Port of the REST endpoint
+     * @param requestParams {@link RequestParams} object containing collection of parameters in key/ value pair for REST request
+     * @param targetType    Class of the target type T
+     * @param alias         JSON alias for reading the entity from JSON response.
+     * @param httpContext   {@link HttpContext} instance containing advanced configurations like proxy, authenticatin, connection timeout and other HTTP params.
+     * @return {@link CompletableFuture} of the list of entities of target type T
+     */
+    public final static <T> CompletableFuture<List<T>> getByJSONAsync(String baseURI, int port, RequestParams requestParams, Class<T> targetType, String alias, HttpContext httpContext) {
+        JSONAlias jsonAlias = new JSONAlias(alias);
+        return RestingHelper.executeAndTransformAsync(baseURI, port, requestParams, Verb.GET, TransformationType.JSON, targetType, jsonAlias, UTF8, null, httpContext);
+    }//getByJSONAsync
+
     /**
      * Executes HTTP/HTTPS GET request and transforms the JSON response into list of target entity.
      * <p>
@@ -928,4 +1128,9 @@ public final class Resting {
     public final static <T extends AtomFeed> List<T> restByATOM(String baseURI, int port, RequestParams requestParams, Verb verb, Class<T> targetType, XMLAlias alias, EncodingTypes encodingType, List<Header> additionalHeaders) {
         return executeAndTransform(baseURI, port, requestParams, verb, TransformationType.ATOM, targetType, alias, encodingType, additionalHeaders, null);
     }// restByATOM
+
+    private static RequestProgressListener getRequestProgressListener(HttpContext httpContext) {
+        return (httpContext != null) ? httpContext.getRequestProgressListener() : null;
+    }//getRequestProgressListener
+
 }//Resting
@@ -15,20 +15,29 @@
 */
 package com.google.resting;
 
+import com.google.resting.async.listener.RequestProgressListener;
 import com.google.resting.component.Alias;
 import com.google.resting.component.EncodingTypes;
+import com.google.resting.component.ExecutionMode;
 import com.google.resting.component.RequestParams;
 import com.google.resting.component.Verb;
+import com.google.resting.component.impl.DownloadResult;
 import com.google.resting.component.impl.ServiceResponse;
+import com.google.resting.component.impl.StreamingServiceResponse;
 import com.google.resting.component.impl.json.JSONAlias;
 import com.google.resting.helper.RestingHelper;
 import com.google.resting.rest.client.HttpContext;
+import com.google.resting.rest.client.RetryPolicy;
 import com.google.resting.transform.TransformationType;
 import org.apache.http.Header;
 import org.apache.http.auth.AuthScope;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * <p>Use this builder to make a REST invocation, get the response and create entities when you need to set configuration
@@ -83,6 +92,7 @@ import java.util.Map;
  *      Port= 80
  *      {@code TransformationType}= TransformationType.JSON
  *      {@code EncodingTypes}= EncodingTypes.UTF8
+ *      {@code ExecutionMode}= ExecutionMode.ASYNC_IO
  * </pre>
  * <p>
  * Non-default parameters will have to be set explicitly.
@@ -116,6 +126,10 @@ public final class RestingBuilder<T> {
 
     private HttpContext httpContext;
 
+    private ExecutionMode executionMode;
+
+    private boolean parallelBinding;
+
     /**
      * Creates a RestingBuilder instance that can be used to build a Resting request with various configuration
      * settings. RestingBuilder follows the builder pattern, and it is typically used by first
@@ -150,6 +164,43 @@ public final class RestingBuilder<T> {
         return RestingHelper.execute(uri, port, requestParams, verb, encoding, additionalHeaders, httpContext);
     }//build
 
+    /**
+     * Invokes REST service without buffering the response body. The body is read from the returned
+     * {@code StreamingServiceResponse}, which must be closed to release the connection.
+     *
+     * @return {@code StreamingServiceResponse} object giving access to the response body as a stream.
+     */
+    public StreamingServiceResponse invokeStreaming() {
+        return RestingHelper.executeStreaming(uri, port, requestParams, verb, encoding, additionalHeaders, httpContext);
+    }//invokeStreaming
+
+    /**
+     * Invokes REST service and writes the response body straight into the file, without keeping it in memory. If the
+     * file already holds part of the body, the download resumes with a Range header.
+     *
+     * @param file Destination file
+     * @return {@code DownloadResult} with the status, the number of bytes written and the throughput
+     * @throws IOException if the request fails or the file cannot be written
+     */
+    public DownloadResult downloadTo(Path file) throws IOException {
+        return RestingHelper.download(uri, port, requestParams, verb, encoding, additionalHeaders, httpContext, file);
+    }//downloadTo
+
+    /**
+     * Invokes REST service and returns the target entities as a lazy {@link Stream}. For JSON, the entities are bound
+     * one at a time while the response body is read from the connection, so memory does not grow with the number of
+     * entities; the stream must be closed, e.g. with try-with-resources, to release the connection if it is not read
+     * to the end. For other transformation types, the stream is over the result of {@link #build()}.
+     *
+     * @return a stream of target entities configured with the options currently set in this builder
+     */
+    public Stream<T> stream() {
+        if (transformationType == TransformationType.JSON && (alias == null || alias instanceof JSONAlias))
+            return RestingHelper.executeAndStream(uri, port, requestParams, verb, targetType, (JSONAlias) alias, encoding, additionalHeaders, httpContext);
+        List<T> entities = build();
+        return (entities != null) ? entities.stream() : Stream.<T>empty();
+    }//stream
+
     /**
      * Invokes REST service and creates a {@link List} of target entities based on the current configuration. This method is free of
      * side-effects to this {@code RestingBuilder} instance and hence can be called multiple times.
@@ -169,13 +220,50 @@ public final class RestingBuilder<T> {
     public Map<String, List> build(Map<String, Class> aliasTypeMap) {
         if (transformationType == TransformationType.JSON) {
             if (aliasTypeMap != null) {
-                JSONAlias aliases = new JSONAlias(aliasTypeMap);
+                JSONAlias aliases = new JSONAlias(aliasTypeMap).setParallel(parallelBinding);
                 return RestingHelper.executeAndTransform(uri, port, requestParams, verb, transformationType, aliases, encoding, additionalHeaders, httpContext);
             }//if aliasTypeMap
         }//if JSON
         return null;
     }
 
+    /**
+     * Invokes REST service without blocking the calling thread. The returned future is completed with the
+     * <code>ServiceResponse</code> once the response has been received. This method is free of side-effects to this
+     * {@code RestingBuilder} instance and hence can be called multiple times.
+     *
+     * @return {@link CompletableFuture} of the {@code ServiceResponse} object encapsulating the response from the REST service.
+     */
+    public CompletableFuture<ServiceResponse> invokeAsync() {
+        return RestingHelper.executeAsync(uri, port, requestParams, verb, encoding, additionalHeaders, httpContext, executionMode);
+    }//invokeAsync
+
+    /**
+     * Invokes REST service without blocking the calling thread and creates a {@link List} of target entities based on
+     * the current configuration once the response has been received.
+     *
+     * @return {@link CompletableFuture} of the list of target entities
+     */
+    public CompletableFuture<List<T>> buildAsync() {
+        return RestingHelper.executeAndTransformAsync(uri, port, requestParams, verb, transformationType, targetType, alias, encoding, additionalHeaders, httpContext, executionMode);
+    }//buildAsync
+
+    /**
+     * Invokes REST service without blocking the calling thread and creates a {@link Map} of target entities based on
+     * the current configuration once the response has been received.
+     *
+     * @return {@link CompletableFuture} of the map of target entities, completed with null for non JSON transformation
+     */
+    public CompletableFuture<Map<String, List>> buildAsync(Map<String, Class> aliasTypeMap) {
+        if (transformationType == TransformationType.JSON) {
+            if (aliasTypeMap != null) {
+                JSONAlias aliases = new JSONAlias(aliasTypeMap).setParallel(parallelBinding);
+                return RestingHelper.executeAndTransformAsync(uri, port, requestParams, verb, transformationType, aliases, encoding, additionalHeaders, httpContext, executionMode);
+            }//if aliasTypeMap
+        }//if JSON
+        return CompletableFuture.completedFuture(null);
+    }//buildAsync
+
     /**
      * Sets the connection timeout. Default value is 0, indicating infinite timeout.
      *
@@ -329,6 +417,64 @@ public final class RestingBuilder<T> {
     }//setProxy
 
 
+    /**
+     * Sets the listener notified with the progress of reading the response body
+     *
+     * @param requestProgressListener
+     * @return a reference to this {@code RestingBuilder} object to fulfill the "Builder" pattern
+     */
+    public RestingBuilder setRequestProgressListener(RequestProgressListener requestProgressListener) {
+        httpContext.setRequestProgressListener(requestProgressListener);
+        return this;
+    }//setRequestProgressListener
+
+    /**
+     * Sets the retry policy of blocking invocations.
+     *
+     * @param retryPolicy
+     * @return a reference to this {@code RestingBuilder} object to fulfill the "Builder" pattern
+     */
+    public RestingBuilder setRetryPolicy(RetryPolicy retryPolicy) {
+        httpContext.setRetryPolicy(retryPolicy);
+        return this;
+    }//setRetryPolicy
+
+    /**
+     * Sets the maximum size of the response body of this request, see {@link HttpContext#setMaxResponseSize(long)}.
+     *
+     * @param maxResponseSize Size in bytes, -1 for no limit
+     * @return a reference to this {@code RestingBuilder} object to fulfill the "Builder" pattern
+     */
+    public RestingBuilder setMaxResponseSize(long maxResponseSize) {
+        httpContext.setMaxResponseSize(maxResponseSize);
+        return this;
+    }//setMaxResponseSize
+
+    /**
+     * Sets whether {@link #build(Map)} and {@link #buildAsync(Map)} bind the aliases, and the chunks of large arrays,
+     * in parallel. See {@link JSONAlias#setParallel(boolean)}. Default value is false.
+     *
+     * @param parallelBinding
+     * @return a reference to this {@code RestingBuilder} object to fulfill the "Builder" pattern
+     */
+    public RestingBuilder setParallelBinding(boolean parallelBinding) {
+        this.parallelBinding = parallelBinding;
+        return this;
+    }//setParallelBinding
+
+    /**
+     * Sets how {@link #invokeAsync()} and {@link #buildAsync()} execute the request. Default value is
+     * {@link ExecutionMode#ASYNC_IO}. With {@link ExecutionMode#VIRTUAL_THREAD} the blocking client is used on a
+     * virtual thread, limited by {@link com.google.resting.helper.InvocationExecutor#setMaxConcurrency(int)}.
+     *
+     * @param executionMode
+     * @return a reference to this {@code RestingBuilder} object to fulfill the "Builder" pattern
+     */
+    public RestingBuilder setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+        return this;
+    }//setExecutionMode
+
     /**
      * Sets the alias
      *
@@ -340,6 +486,24 @@ public final class RestingBuilder<T> {
         return this;
     }//setAlias
 
+    /**
+     * Returns the URI of the REST endpoint
+     *
+     * @return uri
+     */
+    public String getUri() {
+        return uri;
+    }//getUri
+
+    /**
+     * Returns the port of the REST endpoint
+     *
+     * @return port
+     */
+    public int getPort() {
+        return port;
+    }//getPort
+
     private void setDefaultData() {
         this.port = 80;
         this.verb = Verb.GET;
@@ -349,6 +513,7 @@ public final class RestingBuilder<T> {
         this.requestParams = null;
         this.alias = null;
         this.httpContext = new HttpContext();
+        this.executionMode = ExecutionMode.ASYNC_IO;
     }
 
 }//RestingBuilder
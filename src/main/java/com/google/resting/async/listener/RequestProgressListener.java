@@ -2,8 +2,30 @@ package com.google.resting.async.listener;
 
 import com.google.resting.async.request.RequestProgress;
 
-
+/**
+ * Listener for the progress of a request. The same {@link RequestProgress} instance is passed on every update of a
+ * request, hence it should be copied if it needs to be retained beyond the callback.
+ * <p>
+ * Both methods have default implementations, so that listeners written against earlier releases, which implement only
+ * {@link #onRequestProgressUpdate()}, still compile. New listeners implement
+ * {@link #onRequestProgressUpdate(RequestProgress)}.
+ */
 public interface RequestProgressListener {
 
-    public RequestProgress onRequestProgressUpdate();
-}
\ No newline at end of file
+    /**
+     * Called with the progress of the request on every update.
+     *
+     * @param requestProgress Current progress of the request
+     */
+    public default void onRequestProgressUpdate(RequestProgress requestProgress) {
+    }
+
+    /**
+     * @deprecated Progress is pushed to {@link #onRequestProgressUpdate(RequestProgress)}; resting never calls this
+     * method.
+     */
+    @Deprecated
+    public default RequestProgress onRequestProgressUpdate() {
+        return null;
+    }
+}
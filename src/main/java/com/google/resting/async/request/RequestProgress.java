@@ -9,6 +9,10 @@ public class RequestProgress {
 
     private float progress;
 
+    private long bytesTransferred;
+
+    private long contentLength = -1;
+
     public RequestProgress(final RequestStatus status) {
         this(status, 0);
     }
@@ -33,4 +37,34 @@ public class RequestProgress {
     public void setProgress(final float progress) {
         this.progress = progress;
     }
-}
\ No newline at end of file
+
+    /**
+     * Number of bytes read or written so far.
+     */
+    public long getBytesTransferred() {
+        return bytesTransferred;
+    }
+
+    /**
+     * Total number of bytes expected, as given by the Content-Length. -1 if unknown.
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public void setContentLength(final long contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Updates the transferred byte count and the progress fraction. The progress stays 0 while the content length is
+     * unknown.
+     *
+     * @param bytesTransferred Number of bytes read or written so far
+     */
+    public void setBytesTransferred(final long bytesTransferred) {
+        this.bytesTransferred = bytesTransferred;
+        if (contentLength > 0)
+            this.progress = Math.min(1f, (float) bytesTransferred / contentLength);
+    }
+}
@@ -5,5 +5,6 @@ public enum RequestStatus {
     READING_FROM_CACHE, //
     LOADING_FROM_NETWORK, //
     WRITING_TO_CACHE, //
+    SENDING_TO_NETWORK, //
     COMPLETE;
 }
\ No newline at end of file
@@ -15,6 +15,8 @@
 */
 package com.google.resting.component;
 
+import java.nio.charset.Charset;
+
 /**
  * Types of encoding supported. The standard charset and binary are included here.
  *
@@ -34,12 +36,40 @@ public enum EncodingTypes {
 
     private String name;
 
+    private final Charset charset;
+
     private EncodingTypes(String name) {
         this.name = name;
+        this.charset = Charset.isSupported(name) ? Charset.forName(name) : null;
     }
 
     public String getName() {
         return name;
     }
 
+    /**
+     * Returns the charset, resolved once when the enum is loaded.
+     *
+     * @return Charset, or null for {@link #BINARY}
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Returns the encoding type of the charset.
+     *
+     * @param charset Charset, may be null
+     * @return Encoding type, or null if the charset is not among the encoding types
+     */
+    public static EncodingTypes forCharset(Charset charset) {
+        if (charset == null)
+            return null;
+        for (EncodingTypes encodingType : values()) {
+            if (charset.equals(encodingType.charset))
+                return encodingType;
+        }
+        return null;
+    }
+
 }
@@ -24,7 +24,8 @@ package com.google.resting.component;
 public enum RequestHeaderType {
 
     ACCEPT("Accept"),
-    ACCEPT_ENCODING("Accept-Encoding");
+    ACCEPT_ENCODING("Accept-Encoding"),
+    RANGE("Range");
 
     private String name;
 
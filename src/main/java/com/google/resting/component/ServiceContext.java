@@ -20,6 +20,7 @@ import com.google.resting.component.impl.URLContext;
 import com.google.resting.rest.client.HttpContext;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.NameValuePair;
 
 import java.util.ArrayList;
@@ -105,5 +106,24 @@ public abstract class ServiceContext {
         return httpContext;
     }//getHttpContext
 
+    /**
+     * Wraps the request body into a gzip compressing entity if it exceeds the compression threshold of the
+     * {@link HttpContext}.
+     *
+     * @param httpEntity Request body, may be null
+     * @return Entity to send
+     */
+    protected HttpEntity compress(HttpEntity httpEntity) {
+        if (httpEntity == null || httpContext == null)
+            return httpEntity;
+        int threshold = httpContext.getRequestCompressionThreshold();
+        if (threshold < 0)
+            return httpEntity;
+        long contentLength = httpEntity.getContentLength();
+        if (contentLength >= 0 && contentLength <= threshold)
+            return httpEntity;
+        return new GzipCompressingEntity(httpEntity);
+    }//compress
+
 
 }//ServiceContext
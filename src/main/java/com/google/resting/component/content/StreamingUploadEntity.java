@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.component.content;
+
+import com.google.resting.async.listener.RequestProgressListener;
+import com.google.resting.async.request.RequestProgress;
+import com.google.resting.async.request.RequestStatus;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+
+/**
+ * Request body which is streamed to the server instead of being built in memory. The body comes either from a file,
+ * read through a {@link FileChannel}, or from a supplier of input streams. A body of unknown length is sent with chunked
+ * transfer encoding. Every call of {@link #writeTo(OutputStream)} or {@link #getContent()} asks the supplier for a new
+ * stream. The entity is reported as repeatable only for a file: a supplier cannot be relied on to supply the same
+ * body again, so HttpClient does not replay such a body on its own, e.g. after an authentication challenge. A
+ * {@link com.google.resting.rest.client.RetryPolicy} still resends it, since each attempt writes the entity anew.
+ * <p>
+ * The listener, if any, is notified with status {@link RequestStatus#SENDING_TO_NETWORK} after every chunk written.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public class StreamingUploadEntity extends AbstractHttpEntity {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Path file;
+
+    private final Supplier<InputStream> inputStreamSupplier;
+
+    private final long contentLength;
+
+    private final RequestProgressListener requestProgressListener;
+
+    /**
+     * Creates an entity which sends the file.
+     *
+     * @param file                    File to send
+     * @param contentType             Content type of the file. May be null.
+     * @param requestProgressListener Listener for the progress of the upload. May be null.
+     */
+    public StreamingUploadEntity(Path file, ContentType contentType, RequestProgressListener requestProgressListener) {
+        this(file, null, file.toFile().length(), contentType, requestProgressListener);
+    }
+
+    /**
+     * Creates an entity which sends the streams of the supplier.
+     *
+     * @param inputStreamSupplier     Supplies a new stream over the body each time the body is written
+     * @param contentLength           Length of the body, -1 if unknown
+     * @param contentType             Content type of the body. May be null.
+     * @param requestProgressListener Listener for the progress of the upload. May be null.
+     */
+    public StreamingUploadEntity(Supplier<InputStream> inputStreamSupplier, long contentLength, ContentType contentType, RequestProgressListener requestProgressListener) {
+        this(null, inputStreamSupplier, contentLength, contentType, requestProgressListener);
+    }
+
+    private StreamingUploadEntity(Path file, Supplier<InputStream> inputStreamSupplier, long contentLength, ContentType contentType, RequestProgressListener requestProgressListener) {
+        this.file = file;
+        this.inputStreamSupplier = inputStreamSupplier;
+        this.contentLength = contentLength;
+        this.requestProgressListener = requestProgressListener;
+        if (contentType != null)
+            setContentType(contentType.getName());
+        setChunked(contentLength < 0);
+    }
+
+    public boolean isRepeatable() {
+        return file != null;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public InputStream getContent() throws IOException {
+        return (file != null) ? Files.newInputStream(file) : inputStreamSupplier.get();
+    }
+
+    public boolean isStreaming() {
+        return false;
+    }
+
+    public void writeTo(OutputStream outputStream) throws IOException {
+        RequestProgress requestProgress = null;
+        if (requestProgressListener != null) {
+            requestProgress = new RequestProgress(RequestStatus.SENDING_TO_NETWORK);
+            requestProgress.setContentLength(contentLength);
+        }
+        if (file != null)
+            writeFile(outputStream, requestProgress);
+        else
+            writeStream(outputStream, requestProgress);
+        if (requestProgress != null) {
+            requestProgress.setStatus(RequestStatus.COMPLETE);
+            requestProgress.setProgress(1f);
+            requestProgressListener.onRequestProgressUpdate(requestProgress);
+        }
+        outputStream.flush();
+    }
+
+    private void writeFile(OutputStream outputStream, RequestProgress requestProgress) throws IOException {
+        FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long size = fileChannel.size();
+            long position = 0;
+            while (position < size) {
+                position += fileChannel.transferTo(position, Math.min(CHUNK_SIZE, size - position), target);
+                notifyProgress(requestProgress, position);
+            }
+        } finally {
+            fileChannel.close();
+        }
+    }
+
+    private void writeStream(OutputStream outputStream, RequestProgress requestProgress) throws IOException {
+        InputStream inputStream = inputStreamSupplier.get();
+        try {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            long count = 0;
+            int n = 0;
+            while ((n = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, n);
+                count += n;
+                notifyProgress(requestProgress, count);
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private void notifyProgress(RequestProgress requestProgress, long bytesTransferred) {
+        if (requestProgress != null) {
+            requestProgress.setBytesTransferred(bytesTransferred);
+            requestProgressListener.onRequestProgressUpdate(requestProgress);
+        }
+    }
+
+}//StreamingUploadEntity
@@ -18,7 +18,6 @@ package com.google.resting.component.content.contentdecorator;
 import com.google.resting.component.EncodingTypes;
 import com.google.resting.component.content.IContentData;
 
-import java.io.UnsupportedEncodingException;
 
 /**
  * Byte content data from REST response
@@ -52,11 +51,7 @@ public class ByteContentData implements IContentData {
     @Override
     public String getContentInString() {
         if (contentInString == null)
-            try {
-                contentInString = new String(content, EncodingTypes.UTF8.getName());
-            } catch (UnsupportedEncodingException e) {
-                e.printStackTrace();
-            }
+            contentInString = new String(content, EncodingTypes.UTF8.getCharset());
         return contentInString;
     }
 
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.component.content.contentdecorator;
+
+import com.google.resting.component.EncodingTypes;
+import com.google.resting.component.content.IContentData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary content data from REST response which has been spilled to a temporary file because it is too large to be
+ * kept in memory. The content is read through a {@link FileChannel}, mapped into memory with {@link #map()}, or
+ * transferred to another channel without copying it through the heap with {@link #transferTo(WritableByteChannel)}.
+ * Closing the content data, or the {@link com.google.resting.component.impl.ServiceResponse} holding it, deletes the
+ * file. Files which are still open when the VM shuts down are deleted by a shutdown hook.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public class FileContentData implements IContentData, Closeable {
+
+    /**
+     * Files which have not been closed yet. Unlike {@link java.io.File#deleteOnExit()}, a file leaves the set when it is
+     * closed, so the set only grows with the responses still open.
+     */
+    private static final Set<Path> OPEN_FILES = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            public void run() {
+                for (Path file : OPEN_FILES) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        //ignore, the VM is going down
+                    }
+                }
+            }
+        }, "resting-spill-cleanup"));
+    }
+
+    private final Path file;
+
+    private final long contentLength;
+
+    private String contentInString = null;
+
+    public FileContentData(Path file, long contentLength) {
+        this.file = file;
+        this.contentLength = contentLength;
+        OPEN_FILES.add(file);
+    }
+
+    /**
+     * Returns the content mapped into memory.
+     *
+     * @return Read-only buffer over the file, or null if the file cannot be mapped
+     */
+    public MappedByteBuffer getContent() {
+        try {
+            return map();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Maps the file read-only into memory.
+     *
+     * @return Buffer over the whole content
+     * @throws IOException if the content is larger than 2 GB or the file cannot be mapped
+     */
+    public MappedByteBuffer map() throws IOException {
+        if (contentLength > Integer.MAX_VALUE)
+            throw new IOException("Content of " + contentLength + " bytes is too large to map at once, use getChannel()");
+        FileChannel channel = getChannel();
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, contentLength);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Opens a new read channel on the file. The caller closes the channel.
+     *
+     * @return Channel positioned at the start of the content
+     * @throws IOException
+     */
+    public FileChannel getChannel() throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    /**
+     * Transfers the whole content to the target channel. Uses {@link FileChannel#transferTo(long, long,
+     * WritableByteChannel)}, which lets the operating system copy the bytes without passing them through the heap.
+     *
+     * @param target Channel to write to
+     * @return Number of bytes transferred
+     * @throws IOException
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        FileChannel channel = getChannel();
+        try {
+            long position = 0;
+            while (position < contentLength) {
+                long count = channel.transferTo(position, contentLength - position, target);
+                if (count <= 0 && channel.size() <= position)
+                    break;
+                position += count;
+            }
+            return position;
+        } finally {
+            channel.close();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the content length, capped at Integer.MAX_VALUE. See {@link #getContentLengthLong()}.
+     */
+    @Override
+    public int getContentLength() {
+        return (int) Math.min(contentLength, Integer.MAX_VALUE);
+    }
+
+    public long getContentLengthLong() {
+        return contentLength;
+    }
+
+    /**
+     * Decodes the content as UTF-8, as {@link ByteContentData} does. Only sensible for content which fits into a
+     * String.
+     */
+    @Override
+    public String getContentInString() {
+        if (contentInString == null) {
+            MappedByteBuffer buffer = getContent();
+            if (buffer != null)
+                contentInString = EncodingTypes.UTF8.getCharset().decode(buffer).toString();
+        }
+        return contentInString;
+    }
+
+    /**
+     * Deletes the file.
+     */
+    public void close() throws IOException {
+        OPEN_FILES.remove(file);
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public String toString() {
+        return "FileContentData[" + file + ", " + contentLength + " bytes]";
+    }
+
+}
@@ -18,10 +18,15 @@ package com.google.resting.component.content.contentdecorator;
 import com.google.resting.component.EncodingTypes;
 import com.google.resting.component.content.IContentData;
 
-import java.io.UnsupportedEncodingException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
 
 /**
- * String content data from REST response.
+ * String content data from REST response. The raw bytes are kept and decoded into a String only when the content is
+ * first asked for as a String.
  *
  * @author sujata.de
  * @since resting 0.6
@@ -29,38 +34,94 @@ import java.io.UnsupportedEncodingException;
 
 public class StringContentData implements IContentData {
 
-    private String content = null;
+    private final byte[] bytes;
+
+    private final EncodingTypes charset;
+
+    private final Charset decoder;
 
-    private int contentLength = 0;
+    //Length of the byte order mark, which is skipped when decoding
+    private final int offset;
+
+    private String content = null;
 
     public StringContentData(byte[] bytes, EncodingTypes charset) {
-        try {
-            this.contentLength = bytes.length;
-            if (charset != null)
-                this.content = new String(bytes, charset.getName());
-            else
-                this.content = new String(bytes);
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
-        }
+        this.bytes = bytes;
+        this.charset = charset;
+        this.decoder = (charset != null) ? charset.getCharset() : null;
+        this.offset = 0;
+    }
+
+    /**
+     * Creates the content data for a body whose charset was detected from the response, see
+     * {@link com.google.resting.util.CharsetDetector}.
+     *
+     * @param bytes   Body of the response
+     * @param decoder Charset the body is decoded with
+     * @param offset  Length of the byte order mark at the start of the body
+     */
+    public StringContentData(byte[] bytes, Charset decoder, int offset) {
+        this.bytes = bytes;
+        this.charset = EncodingTypes.forCharset(decoder);
+        this.decoder = decoder;
+        this.offset = offset;
     }
 
     public String getContent() {
+        if (content == null) {
+            content = (decoder != null) ? new String(bytes, offset, bytes.length - offset, decoder) : new String(bytes, offset, bytes.length - offset);
+        }
         return content;
     }
 
+    /**
+     * Returns a reader over the content. If the content has not been decoded into a String yet, the bytes are decoded
+     * while they are read and the String is never built.
+     *
+     * @return Reader over the content
+     */
+    public Reader getReader() {
+        String decoded = content;
+        if (decoded != null)
+            return new StringReader(decoded);
+        return new InputStreamReader(new ByteArrayInputStream(bytes, offset, bytes.length - offset), (decoder != null) ? decoder : Charset.defaultCharset());
+    }
+
+    /**
+     * Returns the raw bytes of the content, without decoding them.
+     *
+     * @return Content in bytes
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return Encoding type of the content, null if the detected charset is not among the {@link EncodingTypes}
+     */
+    public EncodingTypes getCharset() {
+        return charset;
+    }
+
+    /**
+     * @return Charset the content is decoded with, null for the platform default
+     */
+    public Charset getDecodingCharset() {
+        return decoder;
+    }
+
     public int getContentLength() {
-        return contentLength;
+        return bytes.length;
     }
 
     @Override
     public String getContentInString() {
-        return content;
+        return getContent();
     }
 
     @Override
     public String toString() {
-        return content;
+        return getContent();
     }
 
 }
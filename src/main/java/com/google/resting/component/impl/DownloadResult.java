@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.component.impl;
+
+import java.nio.file.Path;
+
+/**
+ * Outcome of downloading a response body into a file with {@link com.google.resting.RestingBuilder#downloadTo(Path)}.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public class DownloadResult {
+
+    private final Path file;
+
+    private final int statusCode;
+
+    private final long bytesTransferred;
+
+    private final long fileSize;
+
+    private final long elapsedMillis;
+
+    private final boolean resumed;
+
+    public DownloadResult(Path file, int statusCode, long bytesTransferred, long fileSize, long elapsedMillis, boolean resumed) {
+        this.file = file;
+        this.statusCode = statusCode;
+        this.bytesTransferred = bytesTransferred;
+        this.fileSize = fileSize;
+        this.elapsedMillis = elapsedMillis;
+        this.resumed = resumed;
+    }//DownloadResult
+
+    public Path getFile() {
+        return file;
+    }//getFile
+
+    /**
+     * @return HTTP status of the response: 200 for a full download, 206 for a resumed one, 416 if the file was already
+     * complete. The file is left untouched for any other status.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }//getStatusCode
+
+    /**
+     * @return Number of bytes received and written in this download
+     */
+    public long getBytesTransferred() {
+        return bytesTransferred;
+    }//getBytesTransferred
+
+    /**
+     * @return Size of the file after the download
+     */
+    public long getFileSize() {
+        return fileSize;
+    }//getFileSize
+
+    /**
+     * @return Time from sending the request to writing the last byte
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }//getElapsedMillis
+
+    /**
+     * @return true if the download continued a partial file
+     */
+    public boolean isResumed() {
+        return resumed;
+    }//isResumed
+
+    /**
+     * @return Throughput in bytes per second
+     */
+    public double getThroughput() {
+        return elapsedMillis == 0 ? bytesTransferred * 1000.0 : bytesTransferred * 1000.0 / elapsedMillis;
+    }//getThroughput
+
+    @Override
+    public String toString() {
+        return "DownloadResult[" + file + ", status=" + statusCode + ", bytes=" + bytesTransferred + ", resumed=" + resumed
+                + ", " + elapsedMillis + " ms, " + String.format("%.1f", getThroughput() / (1024 * 1024)) + " MB/s]";
+    }//toString
+
+}//DownloadResult
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.component.impl;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.DateUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Case-insensitive index over the headers of an HTTP response, with typed accessors for the headers which are looked
+ * up on most responses. The index is built once and is immutable, so it can be shared between threads.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public final class ResponseHeaders {
+
+    private static final Header[] NO_HEADERS = new Header[0];
+
+    private static final String CONTENT_LENGTH = "content-length";
+
+    private static final String CONTENT_TYPE = "content-type";
+
+    private static final String ETAG = "etag";
+
+    private static final String CACHE_CONTROL = "cache-control";
+
+    private static final String RETRY_AFTER = "retry-after";
+
+    private static final String MAX_AGE = "max-age";
+
+    private static final String CHARSET = "charset";
+
+    private final Map<String, Header[]> index;
+
+    public ResponseHeaders(Header[] headers) {
+        Map<String, List<Header>> grouped = new HashMap<String, List<Header>>();
+        if (headers != null) {
+            for (Header header : headers) {
+                String name = header.getName().toLowerCase(Locale.ROOT);
+                List<Header> values = grouped.get(name);
+                if (values == null) {
+                    values = new ArrayList<Header>(1);
+                    grouped.put(name, values);
+                }
+                values.add(header);
+            }
+        }
+        this.index = new HashMap<String, Header[]>(grouped.size() * 2);
+        for (Map.Entry<String, List<Header>> entry : grouped.entrySet()) {
+            this.index.put(entry.getKey(), entry.getValue().toArray(new Header[entry.getValue().size()]));
+        }
+    }//ResponseHeaders
+
+    /**
+     * Returns all headers with the given name, in the order of the response.
+     *
+     * @param name Header name, case-insensitive
+     * @return Headers, empty if the header is absent
+     */
+    public Header[] getHeaders(String name) {
+        Header[] headers = index.get(name.toLowerCase(Locale.ROOT));
+        return (headers != null) ? headers.clone() : NO_HEADERS;
+    }//getHeaders
+
+    /**
+     * Returns the first header with the given name.
+     *
+     * @param name Header name, case-insensitive
+     * @return Header or null if absent
+     */
+    public Header getFirstHeader(String name) {
+        Header[] headers = index.get(name.toLowerCase(Locale.ROOT));
+        return (headers != null) ? headers[0] : null;
+    }//getFirstHeader
+
+    /**
+     * Returns the value of the first header with the given name.
+     *
+     * @param name Header name, case-insensitive
+     * @return Header value or null if absent
+     */
+    public String getValue(String name) {
+        Header header = getFirstHeader(name);
+        return (header != null) ? header.getValue() : null;
+    }//getValue
+
+    public boolean containsHeader(String name) {
+        return index.containsKey(name.toLowerCase(Locale.ROOT));
+    }//containsHeader
+
+    /**
+     * @return Value of the Content-Length header, -1 if absent or invalid
+     */
+    public long getContentLength() {
+        String value = getValue(CONTENT_LENGTH);
+        if (value == null)
+            return -1;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }//getContentLength
+
+    /**
+     * @return Media type of the Content-Type header without its parameters, e.g. application/json, or null if absent
+     */
+    public String getContentType() {
+        HeaderElement element = getContentTypeElement();
+        return (element != null) ? element.getName() : null;
+    }//getContentType
+
+    /**
+     * @return Charset parameter of the Content-Type header, or null if absent
+     */
+    public String getContentCharset() {
+        return getCharset(getFirstHeader(CONTENT_TYPE));
+    }//getContentCharset
+
+    /**
+     * Returns the charset parameter of a Content-Type header.
+     *
+     * @param contentType Content-Type header, may be null
+     * @return Charset name, or null if absent
+     */
+    public static String getCharset(Header contentType) {
+        if (contentType == null)
+            return null;
+        HeaderElement[] elements = contentType.getElements();
+        if (elements.length == 0)
+            return null;
+        NameValuePair charset = elements[0].getParameterByName(CHARSET);
+        return (charset != null && charset.getValue() != null) ? charset.getValue().trim() : null;
+    }//getCharset
+
+    private HeaderElement getContentTypeElement() {
+        Header header = getFirstHeader(CONTENT_TYPE);
+        if (header == null)
+            return null;
+        HeaderElement[] elements = header.getElements();
+        return (elements.length > 0) ? elements[0] : null;
+    }//getContentTypeElement
+
+    /**
+     * @return Entity tag as sent by the server, including quotes and weak prefix, or null if absent
+     */
+    public String getETag() {
+        return getValue(ETAG);
+    }//getETag
+
+    /**
+     * Returns the directives of all Cache-Control headers. Directive names are lower case, directives without a value
+     * like no-cache map to null.
+     *
+     * @return Unmodifiable map of the directives, empty if the header is absent
+     */
+    public Map<String, String> getCacheControl() {
+        Header[] headers = index.get(CACHE_CONTROL);
+        if (headers == null)
+            return Collections.emptyMap();
+        Map<String, String> directives = new LinkedHashMap<String, String>();
+        for (Header header : headers) {
+            for (HeaderElement element : header.getElements()) {
+                directives.put(element.getName().toLowerCase(Locale.ROOT), element.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(directives);
+    }//getCacheControl
+
+    /**
+     * @return max-age directive of the Cache-Control header in seconds, -1 if absent or invalid
+     */
+    public long getMaxAge() {
+        String maxAge = getCacheControl().get(MAX_AGE);
+        if (maxAge == null)
+            return -1;
+        try {
+            return Long.parseLong(maxAge.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }//getMaxAge
+
+    /**
+     * Returns the delay requested by the Retry-After header, given either as seconds or as an HTTP date.
+     *
+     * @return Delay in milliseconds, 0 if the date has passed, -1 if absent or invalid
+     */
+    public long getRetryAfter() {
+        String value = getValue(RETRY_AFTER);
+        if (value == null)
+            return -1;
+        value = value.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return (seconds >= 0) ? seconds * 1000 : -1;
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            if (date == null)
+                return -1;
+            return Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+    }//getRetryAfter
+
+}//ResponseHeaders
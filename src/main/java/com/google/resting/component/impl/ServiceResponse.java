@@ -17,13 +17,18 @@
 package com.google.resting.component.impl;
 
 import com.google.resting.Resting;
+import com.google.resting.async.listener.RequestProgressListener;
 import com.google.resting.component.EncodingTypes;
 import com.google.resting.component.content.IContentData;
+import com.google.resting.serviceaccessor.ResponseTooLargeException;
 import com.google.resting.util.IOUtils;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionReleaseTrigger;
 import org.apache.http.util.CharArrayBuffer;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -36,7 +41,9 @@ import java.io.InputStream;
  * @since resting 0.1
  */
 
-public class ServiceResponse {
+public class ServiceResponse implements Closeable {
+
+    private static final int MAX_TO_STRING_PRESIZE = 8 * 1024;
 
     private int statusCode = 500;
 
@@ -44,19 +51,73 @@ public class ServiceResponse {
 
     private IContentData contentData = null;
 
+    private volatile ResponseHeaders headers = null;
+
     public ServiceResponse(HttpResponse response, EncodingTypes charset) {
+        this(response, charset, null);
+    }//ServiceResponse
+
+    /**
+     * Creates the service response, reporting the progress of reading the response body to the listener.
+     *
+     * @param response                HTTP response
+     * @param charset                 Charset of the response body
+     * @param requestProgressListener Listener for the progress of reading the body. May be null.
+     */
+    public ServiceResponse(HttpResponse response, EncodingTypes charset, RequestProgressListener requestProgressListener) {
+        this(response, charset, requestProgressListener, -1);
+    }//ServiceResponse
+
+    /**
+     * Creates the service response. Text is decoded with the charset of the Content-Type header, a byte order mark or
+     * an XML declaration, in that order; the given charset is used only if the response declares none. A
+     * {@link EncodingTypes#BINARY} body larger than the spill threshold is written to a
+     * temporary file, see {@link com.google.resting.component.content.contentdecorator.FileContentData}, which is
+     * deleted by {@link #close()}.
+     *
+     * @param response                HTTP response
+     * @param charset                 Fallback charset of the response body
+     * @param requestProgressListener Listener for the progress of reading the body. May be null.
+     * @param spillThreshold          Size in bytes above which a binary body is spilled to disk, -1 to keep it in memory
+     */
+    public ServiceResponse(HttpResponse response, EncodingTypes charset, RequestProgressListener requestProgressListener, long spillThreshold) {
+        this(response, charset, requestProgressListener, spillThreshold, -1);
+    }//ServiceResponse
+
+    /**
+     * Creates the service response, reading no more than the maximum size of the body. If the body is larger, the
+     * connection is aborted instead of reading the rest of the body.
+     *
+     * @param response                HTTP response
+     * @param charset                 Fallback charset of the response body
+     * @param requestProgressListener Listener for the progress of reading the body. May be null.
+     * @param spillThreshold          Size in bytes above which a binary body is spilled to disk, -1 to keep it in memory
+     * @param maxResponseSize         Maximum size of the body in bytes, -1 for no limit
+     * @throws ResponseTooLargeException if the body is larger than the maximum size
+     */
+    public ServiceResponse(HttpResponse response, EncodingTypes charset, RequestProgressListener requestProgressListener, long spillThreshold, long maxResponseSize) {
         assert response != null : "HttpResponse should not be null";
         InputStream inputStream = null;
         try {
             if (response != null) {
                 this.statusCode = response.getStatusLine().getStatusCode();
                 this.responseHeaders = response.getAllHeaders();
-                inputStream = response.getEntity().getContent();
-                this.contentData = IOUtils.writeToContentData(inputStream, charset);
+                HttpEntity entity = response.getEntity();
+                inputStream = entity.getContent();
+                try {
+                    this.contentData = IOUtils.writeToContentData(inputStream, charset, ResponseHeaders.getCharset(entity.getContentType()), entity.getContentLength(), requestProgressListener, spillThreshold, maxResponseSize);
+                } catch (ResponseTooLargeException e) {
+                    //closing the stream would read the rest of the body to reuse the connection
+                    if (entity instanceof ConnectionReleaseTrigger)
+                        ((ConnectionReleaseTrigger) entity).abortConnection();
+                    throw e;
+                }
             }//if(response)
             else {
                 throw new NullPointerException("HTTP response is null. Please check availability of endpoint service.");
             }
+        } catch (ResponseTooLargeException e) {
+            throw e;
         } catch (IllegalStateException e) {
             e.printStackTrace();
         } catch (IOException e) {
@@ -108,6 +169,30 @@ public class ServiceResponse {
         return responseHeaders;
     }//getResponseHeaders
 
+    /**
+     * Returns the case-insensitive index of the response headers. The index is built on first use.
+     *
+     * @return {@link ResponseHeaders} of the response
+     */
+    public ResponseHeaders getHeaders() {
+        ResponseHeaders headers = this.headers;
+        if (headers == null) {
+            headers = new ResponseHeaders(responseHeaders);
+            this.headers = headers;
+        }
+        return headers;
+    }//getHeaders
+
+    /**
+     * Returns the value of the first response header with the given name.
+     *
+     * @param name Header name, case-insensitive
+     * @return Header value or null if absent
+     */
+    public String getHeader(String name) {
+        return getHeaders().getValue(name);
+    }//getHeader
+
     /**
      * Returns the content length of the HTTP response
      *
@@ -127,18 +212,24 @@ public class ServiceResponse {
         return contentData;
     }
 
+    /**
+     * Releases the content of the response. Deletes the temporary file of a response spilled to disk; a no-op for
+     * content held in memory.
+     */
+    public void close() throws IOException {
+        if (contentData instanceof Closeable)
+            ((Closeable) contentData).close();
+    }//close
+
     @Override
     public String toString() {
-        int length = 150;
-        length = contentData.getContentLength() + length;
-        for (Header header : responseHeaders) {
-            length += header.getName().length() + header.getValue().length() + 3;
-        }
-        CharArrayBuffer buffer = new CharArrayBuffer(length);
+        int headerCount = (responseHeaders != null) ? responseHeaders.length : 0;
+        CharArrayBuffer buffer = new CharArrayBuffer(150 + 64 * headerCount + Math.min(Math.max(0, contentData.getContentLength()), MAX_TO_STRING_PRESIZE));
         buffer.append("\nServiceResponse\n---------------\nHTTP Status: ");
-        buffer.append(statusCode);
+        buffer.append(Integer.toString(statusCode));
         buffer.append("\nHeaders: \n");
-        for (Header header : responseHeaders) {
+        for (int i = 0; i < headerCount; i++) {
+            Header header = responseHeaders[i];
             buffer.append(header.getName());
             buffer.append(" : ");
             buffer.append(header.getValue());
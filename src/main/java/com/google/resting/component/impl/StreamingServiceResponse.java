@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.component.impl;
+
+import com.google.resting.component.EncodingTypes;
+import com.google.resting.serviceaccessor.ResponseTooLargeException;
+import com.google.resting.util.CharsetDetector;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * REST response whose body is not buffered. The body is read straight from the connection through
+ * {@link #getInputStream()}, {@link #getChannel()} or {@link #getReader()}, which may be called once. Closing the
+ * response releases the connection: a fully read body returns it to the pool, a partly read body aborts it so that the
+ * rest of the body is never transferred.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public class StreamingServiceResponse implements Closeable {
+
+    private final int statusCode;
+
+    private final Header[] responseHeaders;
+
+    private ResponseHeaders headers;
+
+    private final HttpEntity entity;
+
+    private final EncodingTypes charset;
+
+    private final long maxResponseSize;
+
+    private BodyInputStream body;
+
+    private boolean closed;
+
+    public StreamingServiceResponse(HttpResponse response, EncodingTypes charset) {
+        this(response, charset, -1);
+    }//StreamingServiceResponse
+
+    /**
+     * @param maxResponseSize Maximum size of the body in bytes, -1 for no limit. Reading beyond it aborts the
+     *                        connection and throws {@link ResponseTooLargeException}.
+     * @throws ResponseTooLargeException if the Content-Length exceeds the maximum size. The caller releases the
+     *                                   connection.
+     */
+    public StreamingServiceResponse(HttpResponse response, EncodingTypes charset, long maxResponseSize) {
+        assert response != null : "HttpResponse should not be null";
+        this.statusCode = response.getStatusLine().getStatusCode();
+        this.responseHeaders = response.getAllHeaders();
+        this.entity = response.getEntity();
+        this.charset = charset;
+        this.maxResponseSize = maxResponseSize;
+        long contentLength = getContentLength();
+        if (maxResponseSize >= 0 && contentLength > maxResponseSize)
+            throw new ResponseTooLargeException(maxResponseSize, contentLength);
+    }//StreamingServiceResponse
+
+    /**
+     * Get status code of http response
+     *
+     * @return http status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }//getStatusCode
+
+    /**
+     * Get the response headers of the HTTP response.
+     *
+     * @return Array of response headers, in name-value pair in {@link org.apache.http.Header} objects.
+     */
+    public Header[] getResponseHeaders() {
+        return responseHeaders;
+    }//getResponseHeaders
+
+    /**
+     * @return Case-insensitive index of the response headers, built on first use
+     */
+    public synchronized ResponseHeaders getHeaders() {
+        if (headers == null)
+            headers = new ResponseHeaders(responseHeaders);
+        return headers;
+    }//getHeaders
+
+    /**
+     * Returns the content length announced by the server.
+     *
+     * @return Content length, or -1 if unknown
+     */
+    public long getContentLength() {
+        return entity == null ? -1 : entity.getContentLength();
+    }//getContentLength
+
+    /**
+     * Returns the body of the response. The stream can be obtained once; closing it releases the connection. If the
+     * body grows beyond the maximum response size, the read which crosses it aborts the connection and throws
+     * {@link ResponseTooLargeException}.
+     *
+     * @return Body of the response, empty if the response has no body
+     * @throws IOException
+     */
+    public synchronized InputStream getInputStream() throws IOException {
+        if (closed)
+            throw new IOException("Response is closed");
+        if (body != null)
+            throw new IllegalStateException("The body of a streaming response can be read once");
+        InputStream content = (entity == null) ? null : entity.getContent();
+        body = new BodyInputStream(content, maxResponseSize);
+        return body;
+    }//getInputStream
+
+    /**
+     * Returns the body of the response as a channel. See {@link #getInputStream()}.
+     *
+     * @return Body of the response
+     * @throws IOException
+     */
+    public ReadableByteChannel getChannel() throws IOException {
+        return Channels.newChannel(getInputStream());
+    }//getChannel
+
+    /**
+     * Returns the body of the response, decoded while it is read with the charset of the Content-Type header, else the
+     * charset of the request; UTF-8 for {@link EncodingTypes#BINARY}. See
+     * {@link #getInputStream()}.
+     *
+     * @return Body of the response, empty if the response has no body
+     * @throws IOException
+     */
+    public Reader getReader() throws IOException {
+        Charset decoder = (entity == null) ? null : CharsetDetector.forName(ResponseHeaders.getCharset(entity.getContentType()));
+        if (decoder == null)
+            decoder = (charset != null && charset.getCharset() != null) ? charset.getCharset() : EncodingTypes.UTF8.getCharset();
+        return new InputStreamReader(getInputStream(), decoder);
+    }//getReader
+
+    /**
+     * Releases the connection of the response. A body which has not been read to the end is discarded by aborting the
+     * connection.
+     */
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        if (body == null)
+            body = new BodyInputStream(entity == null ? null : entity.getContent(), -1);
+        body.close();
+    }//close
+
+    /**
+     * Body stream which tells a fully read body, whose connection can be reused, from a partly read one, and which
+     * enforces the maximum response size.
+     */
+    private static final class BodyInputStream extends FilterInputStream {
+
+        private final long maxSize;
+
+        private long count;
+
+        private boolean eof;
+
+        private boolean released;
+
+        BodyInputStream(InputStream content, long maxSize) {
+            super(content);
+            this.maxSize = maxSize;
+            eof = (content == null);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (eof)
+                return -1;
+            int b = super.read();
+            if (b == -1)
+                eof = true;
+            else
+                counted(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (eof)
+                return -1;
+            int n = super.read(b, off, len);
+            if (n == -1)
+                eof = true;
+            else
+                counted(n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            counted(skipped);
+            return skipped;
+        }
+
+        private void counted(long n) throws IOException {
+            count += n;
+            if (maxSize >= 0 && count > maxSize) {
+                //eof is false, so this aborts the connection instead of draining the rest of the body
+                close();
+                throw new ResponseTooLargeException(maxSize, -1);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (released)
+                return;
+            released = true;
+            if (in == null)
+                return;
+            if (!eof && in instanceof ConnectionReleaseTrigger)
+                ((ConnectionReleaseTrigger) in).abortConnection();
+            else
+                in.close();
+        }
+
+    }//BodyInputStream
+
+}//StreamingServiceResponse
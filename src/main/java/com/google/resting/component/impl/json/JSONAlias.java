@@ -33,6 +33,8 @@ public class JSONAlias implements Alias {
 
     private String singleAlias = null;
 
+    private boolean parallel = false;
+
     public JSONAlias() {
         aliasTypeMap = new HashMap<String, Class>();
     }//JSONAlias
@@ -61,6 +63,22 @@ public class JSONAlias implements Alias {
         return aliasTypeMap;
     }//getAliasTypeMap
 
+    /**
+     * Binds the aliases of the alias map, and the chunks of large arrays, in parallel on the common fork-join pool.
+     * The entities keep the order of the response. Default value is false.
+     *
+     * @param parallel
+     * @return this
+     */
+    public JSONAlias setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }//setParallel
+
+    public boolean isParallel() {
+        return parallel;
+    }//isParallel
+
     public String getSingleAlias() {
         assert singleAlias != null : "The alias is null";
         return singleAlias;
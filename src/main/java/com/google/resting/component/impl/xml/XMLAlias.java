@@ -323,4 +323,13 @@ public class XMLAlias implements Alias {
         return attributeMap;
     }//getAttributeMap
 
+    /**
+     * Takes an immutable snapshot of this XMLAlias, which can be used as a key of a cache.
+     *
+     * @return Snapshot of the current state
+     */
+    public XMLAliasKey getKey() {
+        return new XMLAliasKey(this);
+    }//getKey
+
 }//XMLAlias
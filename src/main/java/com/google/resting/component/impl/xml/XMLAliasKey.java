@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.resting.component.impl.xml;
+
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.SingleValueConverter;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of an {@link XMLAlias}, used as the key of the configured XStream instances. Two snapshots are
+ * equal when their aliases, attributes, implicit collections, reference mode, converters, annotated types and qualified
+ * names are equal. Converters are compared as the {@link XMLAlias} holds them, normally by identity. Changing the
+ * {@link XMLAlias} afterwards does not change the snapshot.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public final class XMLAliasKey {
+
+    private final Map<String, Class> aliasTypeMap;
+
+    private final Map<String, Class> implicitCollectionMap;
+
+    private final ReferenceMode referenceMode;
+
+    private final Map<Converter, Priority> converters;
+
+    private final Map<SingleValueConverter, Priority> singleValueConverters;
+
+    private final List<Class> annotatedTypeList;
+
+    private final Map<QName, Class> qualifiedNameMap;
+
+    private final Map<String, Class> attributeMap;
+
+    private final int hashCode;
+
+    XMLAliasKey(XMLAlias xmlAlias) {
+        this.aliasTypeMap = copy(xmlAlias.getAliasTypeMap());
+        this.implicitCollectionMap = copy(xmlAlias.getImplicitCollectionMap());
+        this.referenceMode = xmlAlias.getReferenceMode();
+        this.converters = copy(xmlAlias.getConverters());
+        this.singleValueConverters = copy(xmlAlias.getSingleValueConverters());
+        this.annotatedTypeList = xmlAlias.getAnnotatedTypeList() == null ? Collections.<Class>emptyList()
+                : Collections.unmodifiableList(new ArrayList<Class>(xmlAlias.getAnnotatedTypeList()));
+        this.qualifiedNameMap = copy(xmlAlias.getQNameMap());
+        this.attributeMap = copy(xmlAlias.getAttributeMap());
+
+        int result = aliasTypeMap.hashCode();
+        result = 31 * result + implicitCollectionMap.hashCode();
+        result = 31 * result + (referenceMode == null ? 0 : referenceMode.hashCode());
+        result = 31 * result + converters.hashCode();
+        result = 31 * result + singleValueConverters.hashCode();
+        result = 31 * result + annotatedTypeList.hashCode();
+        result = 31 * result + qualifiedNameMap.hashCode();
+        result = 31 * result + attributeMap.hashCode();
+        this.hashCode = result;
+    }//XMLAliasKey
+
+    private static <K, V> Map<K, V> copy(Map<K, V> map) {
+        if (map == null || map.isEmpty())
+            return Collections.emptyMap();
+        return Collections.unmodifiableMap(new LinkedHashMap<K, V>(map));
+    }//copy
+
+    public Map<String, Class> getAliasTypeMap() {
+        return aliasTypeMap;
+    }
+
+    public Map<String, Class> getImplicitCollectionMap() {
+        return implicitCollectionMap;
+    }
+
+    public ReferenceMode getReferenceMode() {
+        return referenceMode;
+    }
+
+    public Map<Converter, Priority> getConverters() {
+        return converters;
+    }
+
+    public Map<SingleValueConverter, Priority> getSingleValueConverters() {
+        return singleValueConverters;
+    }
+
+    public List<Class> getAnnotatedTypeList() {
+        return annotatedTypeList;
+    }
+
+    public Map<QName, Class> getQNameMap() {
+        return qualifiedNameMap;
+    }
+
+    public Map<String, Class> getAttributeMap() {
+        return attributeMap;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof XMLAliasKey))
+            return false;
+        XMLAliasKey other = (XMLAliasKey) o;
+        return hashCode == other.hashCode
+                && referenceMode == other.referenceMode
+                && aliasTypeMap.equals(other.aliasTypeMap)
+                && implicitCollectionMap.equals(other.implicitCollectionMap)
+                && converters.equals(other.converters)
+                && singleValueConverters.equals(other.singleValueConverters)
+                && annotatedTypeList.equals(other.annotatedTypeList)
+                && qualifiedNameMap.equals(other.qualifiedNameMap)
+                && attributeMap.equals(other.attributeMap);
+    }//equals
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }//hashCode
+
+}//XMLAliasKey
@@ -0,0 +1,180 @@
+/*
+* Copyright (C) 2013 Google Code.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package com.google.resting.helper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for blocking REST invocations. On JDKs with virtual threads every task runs on its own virtual thread;
+ * on older JDKs the tasks run on a pool of platform threads sized to the concurrency limit. In both cases a task takes
+ * a permit of the limiter before it is handed to the executor, so no more than the maximum concurrency of tasks are
+ * running or waiting in the executor at any time.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public final class InvocationExecutor {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 256;
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private static final boolean VIRTUAL_THREADS = !(EXECUTOR instanceof ThreadPoolExecutor);
+
+    private static final Limiter LIMITER = new Limiter(DEFAULT_MAX_CONCURRENCY);
+
+    private static int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+
+    private InvocationExecutor() {
+    }
+
+    /**
+     * Submits a blocking task. The calling thread waits for a permit of the concurrency limiter, so that callers are
+     * held back while the maximum number of tasks are running. If the caller is interrupted while waiting the returned
+     * future is completed with the {@link InterruptedException} and the interrupt flag is restored.
+     *
+     * @param task Blocking task
+     * @return {@link CompletableFuture} completed with the result of the task
+     */
+    public static <V> CompletableFuture<V> submit(final Callable<V> task) {
+        final CompletableFuture<V> result = new CompletableFuture<V>();
+        try {
+            LIMITER.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.completeExceptionally(e);
+            return result;
+        }
+        try {
+            EXECUTOR.execute(new Runnable() {
+                public void run() {
+                    try {
+                        if (!result.isDone())
+                            result.complete(task.call());
+                    } catch (Throwable t) {
+                        result.completeExceptionally(t);
+                    } finally {
+                        LIMITER.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LIMITER.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }//submit
+
+    /**
+     * Sets the maximum number of invocations running at the same time. Tasks already running keep their permits; when
+     * the limit is lowered, new tasks wait until enough of them have finished.
+     *
+     * @param maxConcurrency
+     */
+    public static synchronized void setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        int delta = maxConcurrency - InvocationExecutor.maxConcurrency;
+        if (delta > 0)
+            LIMITER.release(delta);
+        else if (delta < 0)
+            LIMITER.reducePermits(-delta);
+        if (!VIRTUAL_THREADS) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) EXECUTOR;
+            //The core size may never exceed the maximum size, so the order depends on the direction of the change
+            if (delta > 0) {
+                pool.setMaximumPoolSize(maxConcurrency);
+                pool.setCorePoolSize(maxConcurrency);
+            } else {
+                pool.setCorePoolSize(maxConcurrency);
+                pool.setMaximumPoolSize(maxConcurrency);
+            }
+        }
+        InvocationExecutor.maxConcurrency = maxConcurrency;
+    }//setMaxConcurrency
+
+    public static synchronized int getMaxConcurrency() {
+        return maxConcurrency;
+    }//getMaxConcurrency
+
+    /**
+     * Returns the executor for short tasks which must not hold up the thread that triggers them, such as building a
+     * response on behalf of the NIO reactor. Such tasks do not take a permit of the concurrency limiter; they run on a
+     * virtual thread of their own, or on the common fork-join pool before Java 21.
+     */
+    public static Executor getCompletionExecutor() {
+        return VIRTUAL_THREADS ? EXECUTOR : ForkJoinPool.commonPool();
+    }//getCompletionExecutor
+
+    /**
+     * Returns true if tasks run on virtual threads, false if they run on the platform thread pool.
+     */
+    public static boolean isVirtualThreaded() {
+        return VIRTUAL_THREADS;
+    }//isVirtualThreaded
+
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception e) {
+            //Virtual threads are not available before Java 21
+        }
+        //Every task holds a limiter permit, so the pool has a thread for each of them and the queue stays empty
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_MAX_CONCURRENCY, DEFAULT_MAX_CONCURRENCY, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "resting-invoker-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }//createExecutor
+
+    /**
+     * Semaphore whose number of permits can be lowered while permits are held
+     */
+    private static final class Limiter extends Semaphore {
+
+        private static final long serialVersionUID = 1L;
+
+        Limiter(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }//Limiter
+
+}//InvocationExecutor
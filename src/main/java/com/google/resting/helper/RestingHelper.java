@@ -16,23 +16,58 @@
 
 package com.google.resting.helper;
 
+import com.google.resting.RestingBuilder;
 import com.google.resting.component.Alias;
 import com.google.resting.component.EncodingTypes;
+import com.google.resting.component.ExecutionMode;
+import com.google.resting.component.RequestHeaderType;
 import com.google.resting.component.RequestParams;
+import com.google.resting.component.ServiceContext;
 import com.google.resting.component.Verb;
+import com.google.resting.component.impl.DownloadResult;
 import com.google.resting.component.impl.ServiceResponse;
+import com.google.resting.component.impl.StreamingServiceResponse;
+import com.google.resting.component.impl.URLContext;
 import com.google.resting.component.impl.json.JSONAlias;
+import com.google.resting.method.delete.DeleteServiceContext;
+import com.google.resting.method.get.GetServiceContext;
+import com.google.resting.method.post.PostServiceContext;
+import com.google.resting.method.put.PutServiceContext;
 import com.google.resting.rest.client.HttpContext;
+import com.google.resting.serviceaccessor.impl.ServiceAccessor;
 import com.google.resting.transform.TransformationType;
+import com.google.resting.transform.impl.JSONEntityIterator;
 import com.google.resting.transform.impl.JSONTransformer;
+import com.google.resting.transform.impl.StreamingJSONTransformer;
 import com.google.resting.transform.impl.XMLTransformer;
 import com.google.resting.transform.impl.YAMLTransformer;
 import com.google.resting.transform.impl.atom.AtomTransformer;
+import com.google.resting.util.IOUtils;
 import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.apache.http.message.BasicHeader;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.google.resting.method.delete.DeleteHelper.delete;
 import static com.google.resting.method.get.GetHelper.get;
@@ -48,17 +83,229 @@ import static com.google.resting.method.put.PutHelper.put;
 
 public final class RestingHelper {
 
+    private static final String IDENTITY_ENCODING = "identity";
+
+    private static final String CONTENT_RANGE = "Content-Range";
+
     public final static ServiceResponse execute(String url, int port, RequestParams requestParams, Verb verb, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext) {
         return getServiceResponse(url, port, requestParams, verb, encoding, additionalHeaders, httpContext);
     }//execute
 
+    /**
+     * Executes the request without reading the response body. The returned response must be closed.
+     */
+    public final static StreamingServiceResponse executeStreaming(String url, int port, RequestParams requestParams, Verb verb, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext) {
+        ServiceContext serviceContext = getServiceContext(url, port, requestParams, verb, encoding, additionalHeaders, httpContext);
+        return ServiceAccessor.accessStreaming(serviceContext);
+    }//executeStreaming
+
+    /**
+     * Executes the request and binds the entities of the JSON response lazily, while the body is read from the
+     * connection. See {@link JSONEntityIterator}. Closing the stream releases the connection.
+     *
+     * @return Stream of the entities, empty if the request failed
+     */
+    public final static <T> Stream<T> executeAndStream(String url, int port, RequestParams requestParams, Verb verb, Class<T> targetType, JSONAlias alias, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext) {
+        StreamingServiceResponse serviceResponse = executeStreaming(url, port, requestParams, verb, encoding, additionalHeaders, httpContext);
+        if (serviceResponse == null)
+            return Stream.empty();
+        final JSONEntityIterator<T> iterator = new JSONEntityIterator<T>(serviceResponse, targetType, (alias != null) ? alias.getSingleAlias() : null);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(new Runnable() {
+                    public void run() {
+                        try {
+                            iterator.close();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                });
+    }//executeAndStream
+
+    /**
+     * Downloads the response body into the file. If the file already exists with content, the download asks for the
+     * remaining bytes with a Range header and appends them; a server which ignores the range sends the whole body,
+     * which replaces the file. The body is requested without content encoding, so that ranges refer to the bytes of
+     * the file.
+     *
+     * @return Outcome of the download. The file is left untouched unless the status is 200 or 206.
+     * @throws IOException if the request fails or the file cannot be written
+     * @throws com.google.resting.serviceaccessor.ResponseTooLargeException if the body exceeds the maximum response
+     *                                                                      size. The bytes written so far are kept, as
+     *                                                                      for any interrupted download.
+     */
+    public final static DownloadResult download(String url, int port, RequestParams requestParams, Verb verb, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext, Path file) throws IOException {
+        long existingSize = Files.isRegularFile(file) ? Files.size(file) : 0;
+        List<Header> headers = new ArrayList<Header>();
+        if (additionalHeaders != null)
+            headers.addAll(additionalHeaders);
+        headers.add(new BasicHeader(RequestHeaderType.ACCEPT_ENCODING.getName(), IDENTITY_ENCODING));
+        if (existingSize > 0)
+            headers.add(new BasicHeader(RequestHeaderType.RANGE.getName(), "bytes=" + existingSize + "-"));
+
+        long startTime = System.currentTimeMillis();
+        StreamingServiceResponse serviceResponse = executeStreaming(url, port, requestParams, verb, encoding, headers, httpContext);
+        if (serviceResponse == null)
+            throw new IOException("Download from " + url + " failed");
+        try {
+            int statusCode = serviceResponse.getStatusCode();
+            boolean resumed = (statusCode == HttpStatus.SC_PARTIAL_CONTENT);
+            if (statusCode != HttpStatus.SC_OK && !resumed)
+                return new DownloadResult(file, statusCode, 0, existingSize, System.currentTimeMillis() - startTime, false);
+            if (resumed && !isContentRangeFrom(serviceResponse, existingSize))
+                throw new IOException("Server answered the range request for " + url + " with an unexpected Content-Range");
+
+            long position = resumed ? existingSize : 0;
+            FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                if (!resumed)
+                    fileChannel.truncate(0);
+                long bytesTransferred = IOUtils.copyToFile(serviceResponse.getInputStream(), fileChannel, position);
+                return new DownloadResult(file, statusCode, bytesTransferred, position + bytesTransferred, System.currentTimeMillis() - startTime, resumed);
+            } finally {
+                fileChannel.close();
+            }
+        } finally {
+            serviceResponse.close();
+        }
+    }//download
+
+    private static boolean isContentRangeFrom(StreamingServiceResponse serviceResponse, long position) {
+        String contentRange = serviceResponse.getHeaders().getValue(CONTENT_RANGE);
+        return contentRange != null && contentRange.trim().startsWith("bytes " + position + "-");
+    }//isContentRangeFrom
+
+    public final static CompletableFuture<ServiceResponse> executeAsync(String url, int port, RequestParams requestParams, Verb verb, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext) {
+        return executeAsync(url, port, requestParams, verb, encoding, additionalHeaders, httpContext, ExecutionMode.ASYNC_IO);
+    }//executeAsync
+
+    /**
+     * Executes the request asynchronously, either on the NIO reactor or as a blocking invocation submitted to the
+     * {@link InvocationExecutor}.
+     */
+    public final static CompletableFuture<ServiceResponse> executeAsync(final String url, final int port, final RequestParams requestParams, final Verb verb, final EncodingTypes encoding, final List<Header> additionalHeaders, final HttpContext httpContext, ExecutionMode executionMode) {
+        if (executionMode == ExecutionMode.VIRTUAL_THREAD) {
+            return InvocationExecutor.submit(new Callable<ServiceResponse>() {
+                public ServiceResponse call() {
+                    return getServiceResponse(url, port, requestParams, verb, encoding, additionalHeaders, httpContext);
+                }
+            });
+        }
+        ServiceContext serviceContext = getServiceContext(url, port, requestParams, verb, encoding, additionalHeaders, httpContext);
+        return ServiceAccessor.accessAsync(serviceContext);
+    }//executeAsync
+
+    /**
+     * Invokes all the builders, grouped by target host and port. Requests to the same host run on at most
+     * maxParallelPerHost threads, each of which executes its share of the group one after another so that the pooled
+     * keep-alive connections to that host are reused. Different hosts run in parallel.
+     *
+     * @param builders           Requests to invoke
+     * @param maxParallelPerHost Maximum number of concurrent requests per host and port
+     * @return Responses in the same order as the builders. A request which failed has a null response. If the calling
+     * thread is interrupted, the requests not yet started are skipped and have a null response.
+     */
+    public final static List<ServiceResponse> executeBatch(final List<? extends RestingBuilder> builders, int maxParallelPerHost) {
+        final ServiceResponse[] responses = new ServiceResponse[builders.size()];
+        Map<String, List<Integer>> hostGroups = new LinkedHashMap<String, List<Integer>>();
+        for (int i = 0; i < builders.size(); i++) {
+            RestingBuilder builder = builders.get(i);
+            URLContext urlContext = new URLContext(builder.getUri(), builder.getPort());
+            String hostKey = urlContext.getTargetDomain() + ":" + urlContext.getPort();
+            List<Integer> indices = hostGroups.get(hostKey);
+            if (indices == null) {
+                indices = new ArrayList<Integer>();
+                hostGroups.put(hostKey, indices);
+            }
+            indices.add(i);
+        }//for
+
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for (final List<Integer> indices : hostGroups.values()) {
+            final AtomicInteger next = new AtomicInteger();
+            int parallelism = Math.max(1, Math.min(maxParallelPerHost, indices.size()));
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(InvocationExecutor.submit(new Callable<Void>() {
+                    public Void call() {
+                        int position;
+                        while (!cancelled.get() && (position = next.getAndIncrement()) < indices.size()) {
+                            int index = indices.get(position);
+                            try {
+                                responses[index] = builders.get(index).invoke();
+                            } catch (RuntimeException e) {
+                                //A failed request leaves a null response; the rest of the host group still runs
+                                e.printStackTrace();
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+        }//for
+
+        //Wait for every worker, even when interrupted, so that the responses are not written after they are returned
+        boolean interrupted = false;
+        for (Future<?> worker : workers) {
+            while (true) {
+                try {
+                    worker.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    cancelled.set(true);
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    break;
+                }
+            }
+        }//for
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        return Arrays.asList(responses);
+    }//executeBatch
+
     public final static <T> List<T> executeAndTransform(String url, int port, RequestParams requestParams, Verb verb, TransformationType transformationType, Class<T> targetType, Alias alias, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext) {
         ServiceResponse serviceResponse = getServiceResponse(url, port, requestParams, verb, encoding, additionalHeaders, httpContext);
+        return transform(serviceResponse, transformationType, targetType, alias);
+    }//executeAndTransform
+
+    public final static <T> CompletableFuture<List<T>> executeAndTransformAsync(String url, int port, RequestParams requestParams, Verb verb, TransformationType transformationType, Class<T> targetType, Alias alias, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext) {
+        return executeAndTransformAsync(url, port, requestParams, verb, transformationType, targetType, alias, encoding, additionalHeaders, httpContext, ExecutionMode.ASYNC_IO);
+    }//executeAndTransformAsync
+
+    public final static <T> CompletableFuture<List<T>> executeAndTransformAsync(String url, int port, RequestParams requestParams, Verb verb, final TransformationType transformationType, final Class<T> targetType, final Alias alias, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext, ExecutionMode executionMode) {
+        return executeAsync(url, port, requestParams, verb, encoding, additionalHeaders, httpContext, executionMode)
+                .thenApply(new Function<ServiceResponse, List<T>>() {
+                    public List<T> apply(ServiceResponse serviceResponse) {
+                        return transform(serviceResponse, transformationType, targetType, alias);
+                    }
+                });
+    }//executeAndTransformAsync
+
+    public final static Map<String, List> executeAndTransform(String url, int port, RequestParams requestParams, Verb verb, TransformationType transformationType, JSONAlias alias, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext) {
+        ServiceResponse serviceResponse = getServiceResponse(url, port, requestParams, verb, encoding, additionalHeaders, httpContext);
+        return transform(serviceResponse, transformationType, alias);
+    }//executeAndTransform
 
+    public final static CompletableFuture<Map<String, List>> executeAndTransformAsync(String url, int port, RequestParams requestParams, Verb verb, TransformationType transformationType, JSONAlias alias, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext) {
+        return executeAndTransformAsync(url, port, requestParams, verb, transformationType, alias, encoding, additionalHeaders, httpContext, ExecutionMode.ASYNC_IO);
+    }//executeAndTransformAsync
+
+    public final static CompletableFuture<Map<String, List>> executeAndTransformAsync(String url, int port, RequestParams requestParams, Verb verb, final TransformationType transformationType, final JSONAlias alias, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext, ExecutionMode executionMode) {
+        return executeAsync(url, port, requestParams, verb, encoding, additionalHeaders, httpContext, executionMode)
+                .thenApply(new Function<ServiceResponse, Map<String, List>>() {
+                    public Map<String, List> apply(ServiceResponse serviceResponse) {
+                        return transform(serviceResponse, transformationType, alias);
+                    }
+                });
+    }//executeAndTransformAsync
+
+    private static <T> List<T> transform(ServiceResponse serviceResponse, TransformationType transformationType, Class<T> targetType, Alias alias) {
         List<T> results = new ArrayList<T>();
         final long startTime = System.currentTimeMillis();
         if (transformationType == TransformationType.JSON) {
-            JSONTransformer<T> transformer = new JSONTransformer<T>();
+            JSONTransformer<T> transformer = new StreamingJSONTransformer<T>();
             results = transformer.getEntityList(serviceResponse, targetType, alias);
         }//JSON
 
@@ -82,11 +329,9 @@ public final class RestingHelper {
         System.out.println("Time taken in transformation : " + (endTime - startTime) + " ms.");
 
         return results;
-    }//executeAndTransform
-
-    public final static Map<String, List> executeAndTransform(String url, int port, RequestParams requestParams, Verb verb, TransformationType transformationType, JSONAlias alias, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext) {
-        ServiceResponse serviceResponse = getServiceResponse(url, port, requestParams, verb, encoding, additionalHeaders, httpContext);
+    }//transform
 
+    private static Map<String, List> transform(ServiceResponse serviceResponse, TransformationType transformationType, JSONAlias alias) {
         Map<String, List> results = null;
 
         if (transformationType == TransformationType.JSON) {
@@ -101,7 +346,7 @@ public final class RestingHelper {
 
 
         return results;
-    }//executeAndTransform
+    }//transform
 
     private static ServiceResponse getServiceResponse(String url, int port, RequestParams requestParams, Verb verb, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext) {
         ServiceResponse serviceResponse = null;
@@ -115,4 +360,18 @@ public final class RestingHelper {
             serviceResponse = put(url, encoding, port, requestParams, additionalHeaders, httpContext);
         return serviceResponse;
     }//getServiceResponse
+
+    private static ServiceContext getServiceContext(String url, int port, RequestParams requestParams, Verb verb, EncodingTypes encoding, List<Header> additionalHeaders, HttpContext httpContext) {
+        URLContext urlContext = new URLContext(url, port);
+        ServiceContext serviceContext = null;
+        if (verb == Verb.GET)
+            serviceContext = new GetServiceContext(urlContext, requestParams, encoding, additionalHeaders, httpContext);
+        else if (verb == Verb.DELETE)
+            serviceContext = new DeleteServiceContext(urlContext, requestParams, encoding, additionalHeaders, httpContext);
+        else if (verb == Verb.POST)
+            serviceContext = new PostServiceContext(urlContext, requestParams, encoding, additionalHeaders, httpContext);
+        else if (verb == Verb.PUT)
+            serviceContext = new PutServiceContext(urlContext, requestParams, encoding, additionalHeaders, httpContext);
+        return serviceContext;
+    }//getServiceContext
 }
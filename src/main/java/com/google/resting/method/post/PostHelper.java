@@ -24,6 +24,7 @@ import com.google.resting.component.impl.URLContext;
 import com.google.resting.rest.client.HttpContext;
 import com.google.resting.serviceaccessor.impl.ServiceAccessor;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.entity.mime.content.ContentBody;
 
 import java.io.File;
@@ -67,4 +68,10 @@ public class PostHelper {
         ServiceContext serviceContext = new PostServiceContext(urlContext, requestParams, multipartBody, additionalHeaders, fileContentType, httpContext);
         return ServiceAccessor.access(serviceContext);
     }
+
+    public static ServiceResponse post(String url, int port, HttpEntity httpEntity, RequestParams requestParams, List<Header> additionalHeaders, HttpContext httpContext) {
+        URLContext urlContext = new URLContext(url, port);
+        ServiceContext serviceContext = new PostServiceContext(urlContext, requestParams, httpEntity, EncodingTypes.UTF8, additionalHeaders, httpContext);
+        return ServiceAccessor.access(serviceContext);
+    }//post
 }//PostHelper
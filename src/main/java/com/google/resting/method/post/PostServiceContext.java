@@ -101,6 +101,13 @@ public class PostServiceContext extends ServiceContext {
         //	System.out.println( "The path is "+path);
     }//PostServiceContext
 
+    public PostServiceContext(URLContext urlContext, RequestParams requestParams, HttpEntity httpEntity, EncodingTypes encoding, List<Header> inputHeaders, HttpContext httpContext) {
+        super(urlContext, requestParams, Verb.POST, encoding, inputHeaders, httpContext);
+        this.contextPathElement = urlContext.getContextPath();
+        this.path = this.contextPathElement;
+        this.httpEntity = httpEntity;
+    }//PostServiceContext
+
     private HttpEntity setMessageEntity(String message, EncodingTypes encoding, ContentType contentType) {
         StringEntity entity = null;
         try {
@@ -167,7 +174,7 @@ public class PostServiceContext extends ServiceContext {
 
     @Override
     public HttpEntity getHttpEntity() {
-        return httpEntity;
+        return compress(httpEntity);
     }//getHttpEntity
 
     @Override
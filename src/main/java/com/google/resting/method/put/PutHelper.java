@@ -23,6 +23,7 @@ import com.google.resting.component.impl.URLContext;
 import com.google.resting.rest.client.HttpContext;
 import com.google.resting.serviceaccessor.impl.ServiceAccessor;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 
 import java.io.File;
 import java.util.List;
@@ -52,4 +53,10 @@ public class PutHelper {
         ServiceContext serviceContext = new PutServiceContext(urlContext, file, encoding, isBinaryFile, additionalHeaders, httpContext);
         return ServiceAccessor.access(serviceContext);
     }//put
+
+    public final static ServiceResponse put(String url, int port, HttpEntity httpEntity, List<Header> additionalHeaders, HttpContext httpContext) {
+        URLContext urlContext = new URLContext(url, port);
+        ServiceContext serviceContext = new PutServiceContext(urlContext, httpEntity, EncodingTypes.UTF8, additionalHeaders, httpContext);
+        return ServiceAccessor.access(serviceContext);
+    }//put
 }//PutHelper
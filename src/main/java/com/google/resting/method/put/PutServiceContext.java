@@ -19,6 +19,8 @@ import com.google.resting.component.EncodingTypes;
 import com.google.resting.component.RequestParams;
 import com.google.resting.component.ServiceContext;
 import com.google.resting.component.Verb;
+import com.google.resting.component.content.ContentType;
+import com.google.resting.component.content.StreamingUploadEntity;
 import com.google.resting.component.impl.URLContext;
 import com.google.resting.rest.client.HttpContext;
 import org.apache.http.Header;
@@ -70,10 +72,17 @@ public class PutServiceContext extends ServiceContext {
         super(urlContext, null, Verb.PUT, encoding, inputHeaders, httpContext);
         this.contextPathElement = urlContext.getContextPath();
         this.path = this.contextPathElement;
-        //this.httpEntity=setMessageEntity(message, encoding);
+        this.httpEntity = setFileEntity(file, isBinary);
         //	System.out.println( "The path is "+path);
     }//PutServiceContext
 
+    public PutServiceContext(URLContext urlContext, HttpEntity httpEntity, EncodingTypes encoding, List<Header> inputHeaders, HttpContext httpContext) {
+        super(urlContext, null, Verb.PUT, encoding, inputHeaders, httpContext);
+        this.contextPathElement = urlContext.getContextPath();
+        this.path = this.contextPathElement;
+        this.httpEntity = httpEntity;
+    }//PutServiceContext
+
     private HttpEntity setMessageEntity(String message, String encoding) {
         StringEntity entity = null;
         entity = new StringEntity(message, "text/plain; charset=\"" + encoding + "\"");
@@ -92,9 +101,10 @@ public class PutServiceContext extends ServiceContext {
 
     }
 
-    private HttpEntity setFileEntity(String filename, boolean isBinary) {
-        return null;
-    }
+    private HttpEntity setFileEntity(File file, boolean isBinary) {
+        ContentType contentType = isBinary ? ContentType.APPLICATION_OCTET_STREAM : ContentType.TEXT_PLAIN;
+        return new StreamingUploadEntity(file.toPath(), contentType, getHttpContext() == null ? null : getHttpContext().getRequestProgressListener());
+    }//setFileEntity
 
     @Override
     public String getContextPathElement() {
@@ -103,7 +113,7 @@ public class PutServiceContext extends ServiceContext {
 
     @Override
     public HttpEntity getHttpEntity() {
-        return httpEntity;
+        return compress(httpEntity);
     }//getHttpEntity
 
     @Override
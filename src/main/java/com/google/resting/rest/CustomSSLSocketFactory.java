@@ -24,6 +24,7 @@ import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.TrustManager;
 import java.io.IOException;
@@ -34,7 +35,8 @@ import java.net.UnknownHostException;
 
 /**
  * Custom socket factory to handle SSL authentication. This class is essential because the default self signed
- * SSL certificates have problems in Android.
+ * SSL certificates have problems in Android. All instances share one SSL context, hence TLS sessions are resumed
+ * across connections and clients.
  *
  * @author sujata.de
  * @since resting 0.1
@@ -43,9 +45,27 @@ import java.net.UnknownHostException;
 @SuppressWarnings("deprecation")
 public class CustomSSLSocketFactory implements SocketFactory, LayeredSocketFactory {
 
+    /**
+     * Number of TLS sessions cached for resumption by the shared SSL context.
+     */
+    private static final int SESSION_CACHE_SIZE = 1000;
+
+    /**
+     * Lifetime of the cached TLS sessions, in seconds.
+     */
+    private static final int SESSION_TIMEOUT = 24 * 60 * 60;
+
+    private static volatile SSLContext sharedSSLContext = null;
+
     private SSLContext sslcontext = null;
 
-    private static SSLContext createEasySSLContext() throws IOException {
+    /**
+     * Creates an SSL context which accepts the self signed certificates, in the same way as this socket factory.
+     *
+     * @return SSLContext
+     * @throws IOException if the context can not be initialized
+     */
+    public static SSLContext createEasySSLContext() throws IOException {
         try {
             SSLContext context = SSLContext.getInstance("TLS");
             context.init(null, new TrustManager[]{new CustomX509TrustManager()}, new java.security.SecureRandom());
@@ -55,9 +75,35 @@ public class CustomSSLSocketFactory implements SocketFactory, LayeredSocketFacto
         }
     }//createEasySSLContext
 
+    /**
+     * Returns the process wide SSL context. The context is created once, and its client session cache is kept enabled
+     * so that repeated connections to the same host resume the TLS session instead of doing a full handshake.
+     *
+     * @return shared SSLContext
+     * @throws IOException if the context can not be initialized
+     */
+    public static SSLContext getSharedSSLContext() throws IOException {
+        SSLContext context = sharedSSLContext;
+        if (context == null) {
+            synchronized (CustomSSLSocketFactory.class) {
+                context = sharedSSLContext;
+                if (context == null) {
+                    context = createEasySSLContext();
+                    SSLSessionContext sessionContext = context.getClientSessionContext();
+                    if (sessionContext != null) {
+                        sessionContext.setSessionCacheSize(SESSION_CACHE_SIZE);
+                        sessionContext.setSessionTimeout(SESSION_TIMEOUT);
+                    }
+                    sharedSSLContext = context;
+                }
+            }
+        }
+        return context;
+    }//getSharedSSLContext
+
     private SSLContext getSSLContext() throws IOException {
         if (this.sslcontext == null) {
-            this.sslcontext = createEasySSLContext();
+            this.sslcontext = getSharedSSLContext();
         }
         return this.sslcontext;
     }//getSSLContext
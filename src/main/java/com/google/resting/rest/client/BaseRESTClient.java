@@ -16,25 +16,56 @@
 
 package com.google.resting.rest.client;
 
+import com.google.resting.async.listener.RequestProgressListener;
+import com.google.resting.async.request.RequestProgress;
+import com.google.resting.async.request.RequestStatus;
+import com.google.resting.component.RequestHeaderType;
 import com.google.resting.component.ServiceContext;
 import com.google.resting.component.Verb;
+import com.google.resting.component.impl.ResponseHeaders;
+import com.google.resting.rest.CustomSSLSocketFactory;
+import com.google.resting.rest.util.oauth.RequestConstants;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.Credentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.protocol.ResponseContentEncoding;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.conn.params.ConnRoutePNames;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.util.EntityUtils;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
 import java.util.List;
-
-//import org.apache.http.impl.nio.client.DefaultHttpAsyncClient;
-//import org.apache.http.nio.client.HttpAsyncClient;
-//import org.apache.http.nio.reactor.IOReactorException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Base class for REST client
@@ -42,8 +73,34 @@ import java.util.List;
  * @author sujata.de
  * @since resting 0.7
  */
+@SuppressWarnings("deprecation")
 public abstract class BaseRESTClient {
 
+    private static final int HTTP_PORT = 80;
+
+    private static final int HTTPS_PORT = 443;
+
+    private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    /**
+     * Stateless interceptor which wraps compressed entities into streaming decompressing ones.
+     */
+    private static final ResponseContentEncoding RESPONSE_CONTENT_ENCODING = new ResponseContentEncoding();
+
+    /**
+     * Long lived http clients, one per distinct set of {@link HttpContext} settings. Each client is backed by a pooling
+     * connection manager so that keep-alive connections are reused across invocations.
+     */
+    private static final ConcurrentMap<List<Object>, DefaultHttpClient> HTTP_CLIENTS = new ConcurrentHashMap<List<Object>, DefaultHttpClient>();
+
+    /**
+     * Long lived non-blocking http clients, keyed in the same way as the blocking ones. All of them run on NIO reactors
+     * and keep their own connection pools.
+     */
+    private static final ConcurrentMap<List<Object>, CloseableHttpAsyncClient> HTTP_ASYNC_CLIENTS = new ConcurrentHashMap<List<Object>, CloseableHttpAsyncClient>();
+
+    private static final List<Object> DEFAULT_CLIENT_KEY = Collections.emptyList();
+
     protected static HttpRequest buildHttpRequest(ServiceContext serviceContext) {
 
         String path = serviceContext.getPath();
@@ -57,7 +114,7 @@ public abstract class BaseRESTClient {
                 for (Header header : headers)
                     httpGet.addHeader(header);
             }
-            return httpGet;
+            return acceptCompressedResponse(httpGet, serviceContext);
 
         } else if (verb == Verb.POST) {
             HttpPost httpPost = new HttpPost(path);
@@ -67,7 +124,7 @@ public abstract class BaseRESTClient {
             }
             if (httpEntity != null)
                 httpPost.setEntity(httpEntity);
-            return httpPost;
+            return acceptCompressedResponse(httpPost, serviceContext);
 
         } else if (verb == Verb.DELETE) {
             HttpDelete httpDelete = new HttpDelete(path);
@@ -75,7 +132,7 @@ public abstract class BaseRESTClient {
                 for (Header header : headers)
                     httpDelete.addHeader(header);
             }
-            return httpDelete;
+            return acceptCompressedResponse(httpDelete, serviceContext);
 
         } else {
             HttpPut httpPut = new HttpPut(path);
@@ -85,28 +142,278 @@ public abstract class BaseRESTClient {
             }
             if (httpEntity != null)
                 httpPut.setEntity(httpEntity);
-            return httpPut;
+            return acceptCompressedResponse(httpPut, serviceContext);
         }//if
     }//buildHttpRequest
 
+    /**
+     * Asks for a gzip or deflate compressed response, unless the {@link HttpContext} turns this off or the caller has
+     * set its own Accept-Encoding header.
+     */
+    private static HttpRequest acceptCompressedResponse(HttpRequest request, ServiceContext serviceContext) {
+        HttpContext httpContext = serviceContext.getHttpContext();
+        boolean acceptCompressed = (httpContext == null) || httpContext.isAcceptCompressedResponses();
+        if (acceptCompressed && !request.containsHeader(RequestHeaderType.ACCEPT_ENCODING.getName()))
+            request.addHeader(RequestHeaderType.ACCEPT_ENCODING.getName(), ACCEPT_ENCODING);
+        return request;
+    }//acceptCompressedResponse
+
+    /**
+     * Replaces a gzip or deflate compressed entity of the response with one which decompresses while it is read. The
+     * blocking client does this through an interceptor; the asynchronous client calls this when the response is
+     * complete.
+     *
+     * @param response
+     */
+    protected static void decompress(HttpResponse response) {
+        try {
+            RESPONSE_CONTENT_ENCODING.process(response, new BasicHttpContext());
+        } catch (HttpException e) {
+            e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }//decompress
+
+    /**
+     * Executes the request of the service context on the given client, retrying according to the {@link RetryPolicy}
+     * of its {@link HttpContext}. Each attempt builds a fresh request and runs on the same client, so open connections
+     * are reused. The entity of a response which is retried is consumed to release its connection.
+     *
+     * @return Response of the last attempt
+     * @throws IOException if the last attempt failed
+     */
+    protected static HttpResponse execute(HttpClient httpClient, HttpHost targetHost, ServiceContext serviceContext) throws IOException {
+        HttpContext httpContext = serviceContext.getHttpContext();
+        RetryPolicy retryPolicy = (httpContext != null) ? httpContext.getRetryPolicy() : null;
+        if (retryPolicy == null || !retryPolicy.isRetryable(serviceContext.getVerb()))
+            return httpClient.execute(targetHost, buildHttpRequest(serviceContext));
+
+        RetryBudget retryBudget = RetryBudget.forHost(serviceContext.getTargetDomain(), serviceContext.getPort(),
+                retryPolicy.getBudgetCapacity(), retryPolicy.getBudgetRefillPerSecond());
+        for (int attempt = 1; ; attempt++) {
+            boolean lastAttempt = attempt >= retryPolicy.getMaxAttempts();
+            long backoff = retryPolicy.getBackoff(attempt);
+            try {
+                HttpResponse response = httpClient.execute(targetHost, buildHttpRequest(serviceContext));
+                int statusCode = response.getStatusLine().getStatusCode();
+                if (lastAttempt || !retryPolicy.isRetryableStatusCode(statusCode))
+                    return response;
+                long retryAfter = getRetryAfter(response, statusCode);
+                //The server asks for a longer wait than the policy allows, so its response is final
+                if (retryAfter > retryPolicy.getMaxBackoff() || !retryBudget.tryAcquire())
+                    return response;
+                backoff = Math.max(backoff, retryAfter);
+                EntityUtils.consumeQuietly(response.getEntity());
+            } catch (IOException e) {
+                if (lastAttempt || !retryPolicy.isRetryableException(e) || !retryBudget.tryAcquire())
+                    throw e;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to retry");
+            }
+        }
+    }//execute
+
+    /**
+     * Returns the delay requested by the Retry-After header of a 429 or 503 response.
+     *
+     * @return Delay in milliseconds, -1 if the status does not carry a Retry-After or the header is absent or invalid
+     */
+    static long getRetryAfter(HttpResponse response, int statusCode) {
+        if (statusCode != 429 && statusCode != HttpStatus.SC_SERVICE_UNAVAILABLE)
+            return -1;
+        return new ResponseHeaders(response.getAllHeaders()).getRetryAfter();
+    }//getRetryAfter
+
+    /**
+     * Returns the progress listener configured in the {@link HttpContext} of the service context.
+     *
+     * @param serviceContext
+     * @return listener, or null if none is configured
+     */
+    protected static RequestProgressListener getRequestProgressListener(ServiceContext serviceContext) {
+        HttpContext httpContext = serviceContext.getHttpContext();
+        return (httpContext != null) ? httpContext.getRequestProgressListener() : null;
+    }//getRequestProgressListener
+
+    /**
+     * Returns the size above which binary responses are spilled to disk, as configured in the {@link HttpContext}.
+     *
+     * @param serviceContext
+     * @return threshold in bytes, -1 if responses are kept in memory
+     */
+    protected static long getSpillThreshold(ServiceContext serviceContext) {
+        HttpContext httpContext = serviceContext.getHttpContext();
+        return (httpContext != null) ? httpContext.getSpillThreshold() : -1;
+    }//getSpillThreshold
+
+    protected static long getMaxResponseSize(ServiceContext serviceContext) {
+        HttpContext httpContext = serviceContext.getHttpContext();
+        return (httpContext != null) ? httpContext.getMaxResponseSize() : -1;
+    }//getMaxResponseSize
+
+    /**
+     * Releases the connection of a response which no {@link com.google.resting.component.impl.ServiceResponse} was
+     * built from. The connection is aborted rather than drained, since the body may be large or the failure may have
+     * left it half read.
+     *
+     * @param response Response, may be null
+     */
+    protected static void releaseQuietly(HttpResponse response) {
+        if (response == null || response.getEntity() == null)
+            return;
+        HttpEntity entity = response.getEntity();
+        try {
+            if (entity instanceof ConnectionReleaseTrigger)
+                ((ConnectionReleaseTrigger) entity).abortConnection();
+            else
+                EntityUtils.consumeQuietly(entity);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }//releaseQuietly
+
+    /**
+     * Notifies the listener, if any, that the request is about to be sent.
+     *
+     * @param requestProgressListener
+     */
+    protected static void notifyPending(RequestProgressListener requestProgressListener) {
+        if (requestProgressListener != null)
+            requestProgressListener.onRequestProgressUpdate(new RequestProgress(RequestStatus.PENDING));
+    }//notifyPending
+
+    /**
+     * Returns the shared http client for the {@link HttpContext} of the service context. The client is created on first
+     * use and reused afterwards, hence it must not be shut down by the caller.
+     *
+     * @param serviceContext
+     * @return Pooled http client
+     */
+    protected static DefaultHttpClient getHttpClient(final ServiceContext serviceContext) {
+        HttpContext httpContext = serviceContext.getHttpContext();
+        List<Object> clientKey = (httpContext != null) ? httpContext.getClientKey() : DEFAULT_CLIENT_KEY;
+        DefaultHttpClient httpClient = HTTP_CLIENTS.get(clientKey);
+        if (httpClient == null) {
+            DefaultHttpClient newHttpClient = buildHttpClient(serviceContext);
+            httpClient = HTTP_CLIENTS.putIfAbsent(clientKey, newHttpClient);
+            if (httpClient == null)
+                httpClient = newHttpClient;
+            else
+                newHttpClient.getConnectionManager().shutdown();
+        }
+        return httpClient;
+    }//getHttpClient
+
+    /**
+     * Returns the shared, started non-blocking http client for the {@link HttpContext} of the service context.
+     *
+     * @param serviceContext
+     * @return Pooled asynchronous http client
+     */
+    protected static CloseableHttpAsyncClient getHttpAsyncClient(final ServiceContext serviceContext) throws IOException {
+        HttpContext httpContext = serviceContext.getHttpContext();
+        List<Object> clientKey = (httpContext != null) ? httpContext.getClientKey() : DEFAULT_CLIENT_KEY;
+        CloseableHttpAsyncClient httpAsyncClient = HTTP_ASYNC_CLIENTS.get(clientKey);
+        if (httpAsyncClient == null) {
+            CloseableHttpAsyncClient newHttpAsyncClient = buildHttpAsyncClient(serviceContext);
+            newHttpAsyncClient.start();
+            httpAsyncClient = HTTP_ASYNC_CLIENTS.putIfAbsent(clientKey, newHttpAsyncClient);
+            if (httpAsyncClient == null)
+                httpAsyncClient = newHttpAsyncClient;
+            else
+                newHttpAsyncClient.close();
+        }
+        return httpAsyncClient;
+    }//getHttpAsyncClient
+
+    /**
+     * Shuts down all the shared http clients and closes their pooled connections.
+     */
+    public static void shutdownHttpClients() {
+        for (List<Object> clientKey : HTTP_CLIENTS.keySet()) {
+            DefaultHttpClient httpClient = HTTP_CLIENTS.remove(clientKey);
+            if (httpClient != null)
+                httpClient.getConnectionManager().shutdown();
+        }
+        for (List<Object> clientKey : HTTP_ASYNC_CLIENTS.keySet()) {
+            CloseableHttpAsyncClient httpAsyncClient = HTTP_ASYNC_CLIENTS.remove(clientKey);
+            try {
+                if (httpAsyncClient != null)
+                    httpAsyncClient.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }//shutdownHttpClients
+
     protected static DefaultHttpClient buildHttpClient(ServiceContext serviceContext) {
         DefaultHttpClient httpClient = null;
         HttpParams httpParams = null;
         HttpContext httpContext = serviceContext.getHttpContext();
         Credentials credentials = null;
+        int maxConnectionsPerRoute = HttpContext.DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        int maxTotalConnections = HttpContext.DEFAULT_MAX_TOTAL_CONNECTIONS;
         if (httpContext != null) {
             httpParams = httpContext.getHttpParams();
             credentials = httpContext.getCredentials();
+            maxConnectionsPerRoute = httpContext.getMaxConnectionsPerRoute();
+            maxTotalConnections = httpContext.getMaxTotalConnections();
         }
+
+        SchemeRegistry schemeRegistry = new SchemeRegistry();
+        schemeRegistry.register(new Scheme(RequestConstants.HTTP, HTTP_PORT, PlainSocketFactory.getSocketFactory()));
+        schemeRegistry.register(new Scheme(RequestConstants.HTTPS, new CustomSSLSocketFactory(), HTTPS_PORT));
+
+        PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager(schemeRegistry);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setMaxTotal(maxTotalConnections);
+
         if (httpParams != null)
-            httpClient = new DefaultHttpClient(httpParams);
+            httpClient = new DefaultHttpClient(connectionManager, httpParams.copy());
         else
-            httpClient = new DefaultHttpClient();
+            httpClient = new DefaultHttpClient(connectionManager);
 
         if (credentials != null)
             httpClient.getCredentialsProvider().setCredentials(AuthScope.ANY, credentials);
+        //The retry policy does the retrying, charged against the retry budget; silent retries would bypass it
+        if (httpContext != null && httpContext.getRetryPolicy() != null)
+            httpClient.setHttpRequestRetryHandler(new DefaultHttpRequestRetryHandler(0, false));
+        httpClient.addResponseInterceptor(RESPONSE_CONTENT_ENCODING);
 
         return httpClient;
     }//buildHttpClient
 
+    protected static CloseableHttpAsyncClient buildHttpAsyncClient(ServiceContext serviceContext) throws IOException {
+        HttpContext httpContext = serviceContext.getHttpContext();
+        RequestConfig.Builder requestConfig = RequestConfig.custom();
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .setSSLContext(CustomSSLSocketFactory.getSharedSSLContext())
+                .setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE);
+
+        if (httpContext != null) {
+            HttpParams httpParams = httpContext.getHttpParams();
+            requestConfig.setConnectTimeout(HttpConnectionParams.getConnectionTimeout(httpParams))
+                    .setSocketTimeout(HttpConnectionParams.getSoTimeout(httpParams))
+                    .setProxy((HttpHost) httpParams.getParameter(ConnRoutePNames.DEFAULT_PROXY));
+
+            Credentials credentials = httpContext.getCredentials();
+            if (credentials != null) {
+                CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
+                credentialsProvider.setCredentials(AuthScope.ANY, credentials);
+                builder.setDefaultCredentialsProvider(credentialsProvider);
+            }
+            builder.setMaxConnPerRoute(httpContext.getMaxConnectionsPerRoute())
+                    .setMaxConnTotal(httpContext.getMaxTotalConnections());
+        } else {
+            builder.setMaxConnPerRoute(HttpContext.DEFAULT_MAX_CONNECTIONS_PER_ROUTE)
+                    .setMaxConnTotal(HttpContext.DEFAULT_MAX_TOTAL_CONNECTIONS);
+        }
+        return builder.setDefaultRequestConfig(requestConfig.build()).build();
+    }//buildHttpAsyncClient
+
 }//BaseRESTClient
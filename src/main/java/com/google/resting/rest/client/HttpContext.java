@@ -15,6 +15,7 @@
 */
 package com.google.resting.rest.client;
 
+import com.google.resting.async.listener.RequestProgressListener;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.Credentials;
@@ -24,6 +25,9 @@ import org.apache.http.params.BasicHttpParams;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Encapsulates various contexts for REST invocation
  *
@@ -32,16 +36,54 @@ import org.apache.http.params.HttpParams;
  */
 public class HttpContext {
 
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 200;
+
     private HttpParams httpParams;
 
     private Credentials credentials;
 
     private AuthScope authScope;
 
+    private int maxConnectionsPerRoute;
+
+    private int maxTotalConnections;
+
+    private RequestProgressListener requestProgressListener;
+
+    private int bulkheadMaxConcurrentRequests;
+
+    private int bulkheadMaxQueuedRequests;
+
+    private boolean hedgedRequests;
+
+    private RetryPolicy retryPolicy;
+
+    private boolean acceptCompressedResponses;
+
+    private int requestCompressionThreshold;
+
+    private long spillThreshold;
+
+    private long maxResponseSize;
+
+    private double circuitBreakerFailureRateThreshold;
+
+    private int circuitBreakerWindowSize;
+
+    private long circuitBreakerOpenDuration;
+
     public HttpContext() {
         this.httpParams = new BasicHttpParams();
         this.authScope = null;
         this.credentials = null;
+        this.maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        this.maxTotalConnections = DEFAULT_MAX_TOTAL_CONNECTIONS;
+        this.acceptCompressedResponses = true;
+        this.requestCompressionThreshold = -1;
+        this.spillThreshold = -1;
+        this.maxResponseSize = -1;
     }//HttpContext
 
     public HttpContext setTimeout(int timeout) {
@@ -101,6 +143,187 @@ public class HttpContext {
         return this;
     }//setProxy
 
+    /**
+     * Sets the maximum number of pooled connections kept per route (host and port).
+     *
+     * @param maxConnectionsPerRoute
+     * @return this
+     */
+    public HttpContext setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        return this;
+    }//setMaxConnectionsPerRoute
+
+    /**
+     * Sets the maximum number of pooled connections across all routes.
+     *
+     * @param maxTotalConnections
+     * @return this
+     */
+    public HttpContext setMaxTotalConnections(int maxTotalConnections) {
+        this.maxTotalConnections = maxTotalConnections;
+        return this;
+    }//setMaxTotalConnections
+
+    /**
+     * Sets the listener notified while the response body is being read.
+     *
+     * @param requestProgressListener
+     * @return this
+     */
+    public HttpContext setRequestProgressListener(RequestProgressListener requestProgressListener) {
+        this.requestProgressListener = requestProgressListener;
+        return this;
+    }//setRequestProgressListener
+
+    /**
+     * Enables a bulkhead for the target host and port. At most maxConcurrentRequests blocking requests to the host are
+     * in flight and at most maxQueuedRequests wait for a slot. Further requests fail fast with a
+     * {@link com.google.resting.serviceaccessor.BulkheadFullException}. The limits are fixed by the first request to
+     * the host.
+     *
+     * @param maxConcurrentRequests
+     * @param maxQueuedRequests
+     * @return this
+     */
+    public HttpContext setBulkhead(int maxConcurrentRequests, int maxQueuedRequests) {
+        this.bulkheadMaxConcurrentRequests = maxConcurrentRequests;
+        this.bulkheadMaxQueuedRequests = maxQueuedRequests;
+        return this;
+    }//setBulkhead
+
+    public boolean isBulkheadEnabled() {
+        return bulkheadMaxConcurrentRequests > 0;
+    }//isBulkheadEnabled
+
+    public int getBulkheadMaxConcurrentRequests() {
+        return bulkheadMaxConcurrentRequests;
+    }//getBulkheadMaxConcurrentRequests
+
+    public int getBulkheadMaxQueuedRequests() {
+        return bulkheadMaxQueuedRequests;
+    }//getBulkheadMaxQueuedRequests
+
+    /**
+     * Enables hedging for GET requests. If the first attempt has not answered within the rolling p95 latency of the
+     * host, a second attempt is sent; the first response wins and the other attempt is cancelled. See
+     * {@link com.google.resting.serviceaccessor.impl.LatencyHistogram} for the recorded latencies.
+     *
+     * @param hedgedRequests
+     * @return this
+     */
+    public HttpContext setHedgedRequests(boolean hedgedRequests) {
+        this.hedgedRequests = hedgedRequests;
+        return this;
+    }//setHedgedRequests
+
+    public boolean isHedgedRequests() {
+        return hedgedRequests;
+    }//isHedgedRequests
+
+    /**
+     * Sets the retry policy of blocking invocations. Retries reuse the pooled client of this context and its open
+     * connections. Default value is null, i.e. no retries.
+     *
+     * @param retryPolicy
+     * @return this
+     */
+    public HttpContext setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }//setRetryPolicy
+
+    /**
+     * Enables a circuit breaker for the endpoint (host, port and context path). The circuit opens when the failure
+     * rate over the latest windowSize calls reaches failureRateThreshold; requests then fail fast with a
+     * {@link com.google.resting.serviceaccessor.CircuitOpenException} until openDuration has passed and a trial call
+     * succeeds. A call fails if it throws, returns no response or returns a 5xx status. The settings are fixed by the
+     * first request to the endpoint.
+     *
+     * @param failureRateThreshold Failure rate between 0 and 1, e.g. 0.5
+     * @param windowSize           Number of calls in the sliding window
+     * @param openDuration         Milliseconds the circuit stays open
+     * @return this
+     */
+    public HttpContext setCircuitBreaker(double failureRateThreshold, int windowSize, long openDuration) {
+        this.circuitBreakerFailureRateThreshold = failureRateThreshold;
+        this.circuitBreakerWindowSize = windowSize;
+        this.circuitBreakerOpenDuration = openDuration;
+        return this;
+    }//setCircuitBreaker
+
+    public boolean isCircuitBreakerEnabled() {
+        return circuitBreakerWindowSize > 0;
+    }//isCircuitBreakerEnabled
+
+    public double getCircuitBreakerFailureRateThreshold() {
+        return circuitBreakerFailureRateThreshold;
+    }//getCircuitBreakerFailureRateThreshold
+
+    public int getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }//getCircuitBreakerWindowSize
+
+    public long getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }//getCircuitBreakerOpenDuration
+
+    /**
+     * Sets whether requests carry an Accept-Encoding: gzip, deflate header. Compressed responses are decompressed
+     * while they are read. Default value is true.
+     *
+     * @param acceptCompressedResponses
+     * @return this
+     */
+    public HttpContext setAcceptCompressedResponses(boolean acceptCompressedResponses) {
+        this.acceptCompressedResponses = acceptCompressedResponses;
+        return this;
+    }//setAcceptCompressedResponses
+
+    /**
+     * Enables gzip compression of POST and PUT bodies larger than the threshold. Bodies of unknown length are always
+     * compressed once the threshold is set. Default value is -1, i.e. bodies are sent uncompressed.
+     *
+     * @param requestCompressionThreshold Size in bytes
+     * @return this
+     */
+    public HttpContext setRequestCompressionThreshold(int requestCompressionThreshold) {
+        this.requestCompressionThreshold = requestCompressionThreshold;
+        return this;
+    }//setRequestCompressionThreshold
+
+    public int getRequestCompressionThreshold() {
+        return requestCompressionThreshold;
+    }//getRequestCompressionThreshold
+
+    /**
+     * Sets the size above which {@link com.google.resting.component.EncodingTypes#BINARY} responses are written to a
+     * temporary file instead of being kept in memory. The content data of such a response is a
+     * {@link com.google.resting.component.content.contentdecorator.FileContentData}; closing the response deletes
+     * the file. Default value is -1, i.e. responses are kept in memory.
+     *
+     * @param spillThreshold Size in bytes
+     * @return this
+     */
+    public HttpContext setSpillThreshold(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+        return this;
+    }//setSpillThreshold
+
+    /**
+     * Sets the maximum size of a response body. The limit is checked against the Content-Length before the body is read
+     * and against the bytes received while it is read, after decompression. Once it is crossed the connection is
+     * aborted and the invocation fails with a {@link com.google.resting.serviceaccessor.ResponseTooLargeException}.
+     * Default value is -1, i.e. no limit.
+     *
+     * @param maxResponseSize Size in bytes
+     * @return this
+     */
+    public HttpContext setMaxResponseSize(long maxResponseSize) {
+        this.maxResponseSize = maxResponseSize;
+        return this;
+    }//setMaxResponseSize
+
     protected HttpParams getHttpParams() {
         return httpParams;
     }//getHttpParams
@@ -113,4 +336,57 @@ public class HttpContext {
         return authScope;
     }//getAuthScope
 
+    public RequestProgressListener getRequestProgressListener() {
+        return requestProgressListener;
+    }//getRequestProgressListener
+
+    protected boolean isAcceptCompressedResponses() {
+        return acceptCompressedResponses;
+    }//isAcceptCompressedResponses
+
+    protected long getSpillThreshold() {
+        return spillThreshold;
+    }//getSpillThreshold
+
+    public long getMaxResponseSize() {
+        return maxResponseSize;
+    }//getMaxResponseSize
+
+    protected RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }//getRetryPolicy
+
+    protected int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }//getMaxConnectionsPerRoute
+
+    protected int getMaxTotalConnections() {
+        return maxTotalConnections;
+    }//getMaxTotalConnections
+
+    /**
+     * Returns a snapshot of the settings which shape the underlying http client. Two contexts with equal keys
+     * can share the same pooled client.
+     *
+     * @return List of settings with value based equals and hashCode
+     */
+    protected List<Object> getClientKey() {
+        String user = null;
+        String password = null;
+        if (credentials != null) {
+            user = credentials.getUserPrincipal() == null ? null : credentials.getUserPrincipal().getName();
+            password = credentials.getPassword();
+        }
+        return Arrays.<Object>asList(
+                HttpConnectionParams.getConnectionTimeout(httpParams),
+                HttpConnectionParams.getSoTimeout(httpParams),
+                httpParams.getParameter(ConnRoutePNames.DEFAULT_PROXY),
+                httpParams.getParameter("http.authentication.preemptive"),
+                user,
+                password,
+                maxConnectionsPerRoute,
+                maxTotalConnections,
+                retryPolicy != null);
+    }//getClientKey
+
 }//HttpContext
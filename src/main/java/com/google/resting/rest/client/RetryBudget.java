@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.rest.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Token bucket which limits the retries to one host and port. Each retry takes a token; tokens are refilled at a
+ * constant rate up to the capacity of the bucket.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public final class RetryBudget {
+
+    private static final ConcurrentMap<String, RetryBudget> BUDGETS = new ConcurrentHashMap<String, RetryBudget>();
+
+    private final String host;
+
+    private final int capacity;
+
+    private final double refillPerNano;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    private long exhaustedCount;
+
+    private RetryBudget(String host, int capacity, double refillPerSecond) {
+        this.host = host;
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1e9;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }//RetryBudget
+
+    static RetryBudget forHost(String targetDomain, int port, int capacity, double refillPerSecond) {
+        String host = targetDomain + ":" + port;
+        RetryBudget budget = BUDGETS.get(host);
+        if (budget == null) {
+            RetryBudget created = new RetryBudget(host, capacity, refillPerSecond);
+            budget = BUDGETS.putIfAbsent(host, created);
+            if (budget == null)
+                budget = created;
+        }
+        return budget;
+    }//forHost
+
+    /**
+     * @return Retry budgets created so far, keyed by host:port
+     */
+    public static Map<String, RetryBudget> getRetryBudgets() {
+        return Collections.unmodifiableMap(BUDGETS);
+    }//getRetryBudgets
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return true if the retry may go ahead
+     */
+    synchronized boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens--;
+            return true;
+        }
+        exhaustedCount++;
+        return false;
+    }//tryAcquire
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+    }//refill
+
+    public String getHost() {
+        return host;
+    }//getHost
+
+    public synchronized double getAvailableTokens() {
+        refill();
+        return tokens;
+    }//getAvailableTokens
+
+    /**
+     * @return Number of retries which were skipped because the budget was exhausted
+     */
+    public synchronized long getExhaustedCount() {
+        return exhaustedCount;
+    }//getExhaustedCount
+
+}//RetryBudget
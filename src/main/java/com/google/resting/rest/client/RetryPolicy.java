@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.rest.client;
+
+import com.google.resting.component.Verb;
+import org.apache.http.HttpStatus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry policy of REST invocations. Failed attempts are retried up to a maximum number of attempts with exponential
+ * backoff and full jitter. Every retry spends a token of the {@link RetryBudget} of the host, so that a failing host
+ * does not cause a retry storm.
+ * <p>
+ * By default POST requests are not retried, since they are not idempotent. A 429 or 503 response with a Retry-After
+ * header is retried no earlier than the server asks for, and not at all if that is later than the maximum backoff.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public class RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    public static final long DEFAULT_INITIAL_BACKOFF = 100;
+
+    public static final long DEFAULT_MAX_BACKOFF = 5000;
+
+    public static final int DEFAULT_BUDGET_CAPACITY = 10;
+
+    public static final double DEFAULT_BUDGET_REFILL_PER_SECOND = 1;
+
+    private int maxAttempts;
+
+    private long initialBackoff;
+
+    private long maxBackoff;
+
+    private Set<Integer> retryableStatusCodes;
+
+    private List<Class<? extends IOException>> retryableExceptions;
+
+    private boolean retryNonIdempotent;
+
+    private int budgetCapacity;
+
+    private double budgetRefillPerSecond;
+
+    @SuppressWarnings("unchecked")
+    public RetryPolicy() {
+        this.maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        this.initialBackoff = DEFAULT_INITIAL_BACKOFF;
+        this.maxBackoff = DEFAULT_MAX_BACKOFF;
+        this.retryableStatusCodes = new HashSet<Integer>(Arrays.asList(429, HttpStatus.SC_BAD_GATEWAY,
+                HttpStatus.SC_SERVICE_UNAVAILABLE, HttpStatus.SC_GATEWAY_TIMEOUT));
+        this.retryableExceptions = Arrays.<Class<? extends IOException>>asList(IOException.class);
+        this.budgetCapacity = DEFAULT_BUDGET_CAPACITY;
+        this.budgetRefillPerSecond = DEFAULT_BUDGET_REFILL_PER_SECOND;
+    }//RetryPolicy
+
+    /**
+     * Sets the maximum number of attempts, including the first one.
+     *
+     * @param maxAttempts
+     * @return this
+     */
+    public RetryPolicy setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }//setMaxAttempts
+
+    /**
+     * Sets the backoff bounds in milliseconds. The n-th retry waits a random time between 0 and
+     * min(maxBackoff, initialBackoff * 2^(n-1)).
+     *
+     * @param initialBackoff
+     * @param maxBackoff
+     * @return this
+     */
+    public RetryPolicy setBackoff(long initialBackoff, long maxBackoff) {
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        return this;
+    }//setBackoff
+
+    /**
+     * Sets the response status codes which are retried. Default value is 429, 502, 503 and 504.
+     *
+     * @param statusCodes
+     * @return this
+     */
+    public RetryPolicy setRetryableStatusCodes(Integer... statusCodes) {
+        this.retryableStatusCodes = new HashSet<Integer>(Arrays.asList(statusCodes));
+        return this;
+    }//setRetryableStatusCodes
+
+    /**
+     * Sets the exceptions, including their subclasses, which are retried. Default value is {@link IOException}.
+     *
+     * @param exceptions
+     * @return this
+     */
+    @SafeVarargs
+    public final RetryPolicy setRetryableExceptions(Class<? extends IOException>... exceptions) {
+        //Copied element by element: handing the varargs array on would let it escape the method
+        List<Class<? extends IOException>> retryableExceptions = new ArrayList<Class<? extends IOException>>(exceptions.length);
+        for (Class<? extends IOException> exception : exceptions)
+            retryableExceptions.add(exception);
+        this.retryableExceptions = retryableExceptions;
+        return this;
+    }//setRetryableExceptions
+
+    /**
+     * Sets whether POST requests are retried as well.
+     *
+     * @param retryNonIdempotent
+     * @return this
+     */
+    public RetryPolicy setRetryNonIdempotent(boolean retryNonIdempotent) {
+        this.retryNonIdempotent = retryNonIdempotent;
+        return this;
+    }//setRetryNonIdempotent
+
+    /**
+     * Sets the token bucket which limits the retries per host and port. The limits are fixed by the first retry to the
+     * host.
+     *
+     * @param capacity        Maximum number of retries in a burst
+     * @param refillPerSecond Sustained number of retries per second
+     * @return this
+     */
+    public RetryPolicy setRetryBudget(int capacity, double refillPerSecond) {
+        this.budgetCapacity = capacity;
+        this.budgetRefillPerSecond = refillPerSecond;
+        return this;
+    }//setRetryBudget
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }//getMaxAttempts
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }//getMaxBackoff
+
+    public int getBudgetCapacity() {
+        return budgetCapacity;
+    }//getBudgetCapacity
+
+    public double getBudgetRefillPerSecond() {
+        return budgetRefillPerSecond;
+    }//getBudgetRefillPerSecond
+
+    public boolean isRetryable(Verb verb) {
+        return maxAttempts > 1 && (retryNonIdempotent || verb != Verb.POST);
+    }//isRetryable
+
+    public boolean isRetryableStatusCode(int statusCode) {
+        return retryableStatusCodes.contains(statusCode);
+    }//isRetryableStatusCode
+
+    public boolean isRetryableException(IOException exception) {
+        for (Class<? extends IOException> retryableException : retryableExceptions) {
+            if (retryableException.isInstance(exception))
+                return true;
+        }
+        return false;
+    }//isRetryableException
+
+    /**
+     * @param retry Number of the retry, starting at 1
+     * @return Backoff in milliseconds before the retry
+     */
+    public long getBackoff(int retry) {
+        long ceiling = initialBackoff << Math.min(retry - 1, 30);
+        if (ceiling <= 0 || ceiling > maxBackoff)
+            ceiling = maxBackoff;
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }//getBackoff
+
+}//RetryPolicy
@@ -15,10 +15,30 @@
  */
 package com.google.resting.rest.client.impl;
 
+import com.google.resting.async.listener.RequestProgressListener;
+import com.google.resting.component.EncodingTypes;
+import com.google.resting.component.ServiceContext;
+import com.google.resting.component.impl.ServiceResponse;
+import com.google.resting.helper.InvocationExecutor;
 import com.google.resting.rest.client.BaseRESTClient;
+import com.google.resting.rest.util.oauth.RequestConstants;
+import com.google.resting.util.IOUtils;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
 
 /**
- * Centralized class for all asynchronous REST communication
+ * Centralized class for all asynchronous REST communication. Requests are executed on a shared NIO reactor, so no thread
+ * is blocked while a request is in flight. The response is built and the future completed on the
+ * {@link InvocationExecutor#getCompletionExecutor() completion executor}, not on the reactor thread.
  *
  * @author sujata.de
  * @since resting 0.7
@@ -26,4 +46,76 @@ import com.google.resting.rest.client.BaseRESTClient;
 
 public class AsyncRESTClient extends BaseRESTClient {
 
-}
+    /**
+     * Executes REST request for HTTP or HTTPS without blocking the calling thread.
+     *
+     * @param serviceContext Context of the REST invocation
+     * @return {@link CompletableFuture} which is completed with the {@link ServiceResponse}, or exceptionally if the
+     * request fails. Cancelling the future aborts the underlying request.
+     */
+    public static CompletableFuture<ServiceResponse> invoke(ServiceContext serviceContext) {
+        final CompletableFuture<ServiceResponse> result = new CompletableFuture<ServiceResponse>();
+        final EncodingTypes charset = serviceContext.getCharset();
+        final RequestProgressListener requestProgressListener = getRequestProgressListener(serviceContext);
+        final long spillThreshold = getSpillThreshold(serviceContext);
+        final long maxResponseSize = getMaxResponseSize(serviceContext);
+        String scheme = serviceContext.isSecureInvocation() ? RequestConstants.HTTPS : RequestConstants.HTTP;
+        HttpHost targetHost = new HttpHost(serviceContext.getTargetDomain(), serviceContext.getPort(), scheme);
+        HttpRequest request = buildHttpRequest(serviceContext);
+
+        try {
+            CloseableHttpAsyncClient httpAsyncClient = getHttpAsyncClient(serviceContext);
+            notifyPending(requestProgressListener);
+            FutureCallback<HttpResponse> callback = new FutureCallback<HttpResponse>() {
+
+                public void completed(final HttpResponse response) {
+                    //Decoding, decompression and spilling, as well as the dependents of the future, stay off the reactor
+                    try {
+                        InvocationExecutor.getCompletionExecutor().execute(new Runnable() {
+                            public void run() {
+                                complete(result, response, charset, requestProgressListener, spillThreshold, maxResponseSize);
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        result.completeExceptionally(e);
+                    }
+                }//completed
+
+                public void failed(Exception ex) {
+                    result.completeExceptionally(BoundedResponseConsumer.unwrap(ex));
+                }//failed
+
+                public void cancelled() {
+                    result.cancel(false);
+                }//cancelled
+            };
+            final Future<HttpResponse> future = (maxResponseSize >= 0)
+                    ? httpAsyncClient.execute(HttpAsyncMethods.create(targetHost, request), new BoundedResponseConsumer(maxResponseSize), callback)
+                    : httpAsyncClient.execute(targetHost, request, callback);
+            result.whenComplete(new BiConsumer<ServiceResponse, Throwable>() {
+                public void accept(ServiceResponse serviceResponse, Throwable throwable) {
+                    if (result.isCancelled())
+                        future.cancel(true);
+                }
+            });
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }//invoke
+
+    private static void complete(CompletableFuture<ServiceResponse> result, HttpResponse response, EncodingTypes charset, RequestProgressListener requestProgressListener, long spillThreshold, long maxResponseSize) {
+        //Nobody will see a response which arrives after the future was cancelled
+        if (result.isDone())
+            return;
+        decompress(response);
+        try {
+            ServiceResponse serviceResponse = new ServiceResponse(response, charset, requestProgressListener, spillThreshold, maxResponseSize);
+            if (!result.complete(serviceResponse))
+                IOUtils.closeQuietly(serviceResponse);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }//complete
+
+}//AsyncRESTClient
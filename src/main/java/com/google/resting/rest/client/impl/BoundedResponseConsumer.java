@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.rest.client.impl;
+
+import com.google.resting.serviceaccessor.ResponseTooLargeException;
+import org.apache.http.ContentTooLongException;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ContentBufferEntity;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.http.nio.util.SimpleInputBuffer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+/**
+ * Buffers the response body of an asynchronous request in memory, failing as soon as the body exceeds the maximum
+ * size. Failing the consumer closes the connection, so the rest of the body is never transferred.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+class BoundedResponseConsumer extends AbstractAsyncResponseConsumer<HttpResponse> {
+
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private final long maxResponseSize;
+
+    private volatile HttpResponse response;
+
+    private volatile SimpleInputBuffer buffer;
+
+    BoundedResponseConsumer(long maxResponseSize) {
+        this.maxResponseSize = maxResponseSize;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) throws IOException {
+        this.response = response;
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) throws IOException {
+        long contentLength = entity.getContentLength();
+        if (contentLength > maxResponseSize)
+            throw new ResponseTooLargeIOException(new ResponseTooLargeException(maxResponseSize, contentLength));
+        if (contentLength > Integer.MAX_VALUE)
+            throw new ContentTooLongException("Entity content is too long: " + contentLength);
+        int capacity = (contentLength >= 0) ? (int) contentLength : DEFAULT_BUFFER_SIZE;
+        this.buffer = new SimpleInputBuffer(capacity, HeapByteBufferAllocator.INSTANCE);
+        this.response.setEntity(new ContentBufferEntity(entity, this.buffer));
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        buffer.consumeContent(decoder);
+        if (buffer.length() > maxResponseSize)
+            throw new ResponseTooLargeIOException(new ResponseTooLargeException(maxResponseSize, -1));
+    }
+
+    @Override
+    protected HttpResponse buildResult(HttpContext context) {
+        return response;
+    }
+
+    @Override
+    protected void releaseResources() {
+        response = null;
+        buffer = null;
+    }
+
+    /**
+     * Carries the {@link ResponseTooLargeException} through the I/O reactor, which only expects IOExceptions from a
+     * consumer. See {@link #unwrap(Exception)}.
+     */
+    static class ResponseTooLargeIOException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        ResponseTooLargeIOException(ResponseTooLargeException cause) {
+            super(cause.getMessage(), cause);
+        }
+
+    }//ResponseTooLargeIOException
+
+    /**
+     * @return The {@link ResponseTooLargeException} carried by the exception, or the exception itself
+     */
+    static Exception unwrap(Exception exception) {
+        return (exception instanceof ResponseTooLargeIOException) ? (Exception) exception.getCause() : exception;
+    }//unwrap
+
+}//BoundedResponseConsumer
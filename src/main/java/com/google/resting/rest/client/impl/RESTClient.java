@@ -16,23 +16,24 @@
 
 package com.google.resting.rest.client.impl;
 
+import com.google.resting.async.listener.RequestProgressListener;
 import com.google.resting.component.EncodingTypes;
 import com.google.resting.component.ServiceContext;
 import com.google.resting.component.impl.ServiceResponse;
-import com.google.resting.rest.CustomSSLSocketFactory;
+import com.google.resting.component.impl.StreamingServiceResponse;
 import com.google.resting.rest.client.BaseRESTClient;
 import com.google.resting.rest.util.oauth.RequestConstants;
+import com.google.resting.serviceaccessor.ResponseTooLargeException;
 import org.apache.http.HttpHost;
-import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.conn.ConnectTimeoutException;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.impl.client.DefaultHttpClient;
 
 
 /**
- * Centralized utility for all REST operations.
+ * Centralized utility for all REST operations. Invocations share pooled http clients, so keep-alive connections
+ * (and TLS sessions) are reused across calls with the same {@link com.google.resting.rest.client.HttpContext} settings,
+ * including the retries of its {@link com.google.resting.rest.client.RetryPolicy}.
  *
  * @author sujata.de
  * @since resting 0.1
@@ -54,6 +55,9 @@ public class RESTClient extends BaseRESTClient {
         String targetDomain = serviceContext.getTargetDomain();
         int port = serviceContext.getPort();
         EncodingTypes charset = serviceContext.getCharset();
+        RequestProgressListener requestProgressListener = getRequestProgressListener(serviceContext);
+        long spillThreshold = getSpillThreshold(serviceContext);
+        long maxResponseSize = getMaxResponseSize(serviceContext);
 
         HttpResponse response = null;
         ServiceResponse serviceResponse = null;
@@ -61,18 +65,17 @@ public class RESTClient extends BaseRESTClient {
 
         HttpHost targetHost = new HttpHost(targetDomain, port, RequestConstants.HTTP);
 
-        HttpRequest request = buildHttpRequest(serviceContext);
-
-        HttpClient httpClient = buildHttpClient(serviceContext);
+        HttpClient httpClient = getHttpClient(serviceContext);
 
         try {
             // execute is a blocking call, it's best to call this code in a
             // thread separate from the ui's
+            notifyPending(requestProgressListener);
             final long startTime = System.currentTimeMillis();
-            response = httpClient.execute(targetHost, request);
+            response = execute(httpClient, targetHost, serviceContext);
             final long endTime = System.currentTimeMillis();
 
-            serviceResponse = new ServiceResponse(response, charset);
+            serviceResponse = new ServiceResponse(response, charset, requestProgressListener, spillThreshold, maxResponseSize);
 
             final long endTime2 = System.currentTimeMillis();
 
@@ -81,18 +84,19 @@ public class RESTClient extends BaseRESTClient {
             System.out.println("Time taken in service response construction : " + (endTime2 - endTime) + " ms.");
 
         }// try
-        catch (ConnectTimeoutException e) {
+        catch (ResponseTooLargeException e) {
+            throw e;
+        } catch (ConnectTimeoutException e) {
             System.out.println("[" + functionName + "] Connection timed out. The host may be unreachable.");
             e.printStackTrace();
 
         } catch (Exception ex) {
             ex.printStackTrace();
 
-
         } finally {
-
-            httpClient.getConnectionManager().shutdown();
-
+            //A failure after execute() would otherwise keep the pooled connection checked out
+            if (serviceResponse == null)
+                releaseQuietly(response);
         }//try
         return serviceResponse;
     }// invoke
@@ -112,26 +116,64 @@ public class RESTClient extends BaseRESTClient {
         int port = serviceContext.getPort();
         ServiceResponse serviceResponse = null;
         EncodingTypes charset = serviceContext.getCharset();
+        RequestProgressListener requestProgressListener = getRequestProgressListener(serviceContext);
+        long spillThreshold = getSpillThreshold(serviceContext);
+        long maxResponseSize = getMaxResponseSize(serviceContext);
+        HttpResponse response = null;
         try {
+            notifyPending(requestProgressListener);
             long ioStartTime = System.currentTimeMillis();
             HttpHost targetHost = new HttpHost(targetDomain, port, RequestConstants.HTTPS);
-            HttpRequest request = buildHttpRequest(serviceContext);
+            HttpClient httpclient = getHttpClient(serviceContext);
 
-            DefaultHttpClient httpclient = buildHttpClient(serviceContext);
-            httpclient.getConnectionManager().getSchemeRegistry().register(new Scheme(RequestConstants.HTTPS, new CustomSSLSocketFactory(), port));
-
-            HttpResponse response = httpclient.execute(targetHost, request);
-            serviceResponse = new ServiceResponse(response, charset);
+            response = execute(httpclient, targetHost, serviceContext);
+            serviceResponse = new ServiceResponse(response, charset, requestProgressListener, spillThreshold, maxResponseSize);
             long ioEndTime = System.currentTimeMillis();
 
             System.out.println("Time taken in executing REST: " + (ioEndTime - ioStartTime));
 
+        } catch (ResponseTooLargeException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
+        } finally {
+            if (serviceResponse == null)
+                releaseQuietly(response);
         }
 
         return serviceResponse;
 
     }    //secureInvoke
 
+    /**
+     * Executes REST request for HTTP or HTTPS without reading the response body. The caller reads the body from the
+     * returned response and must close it to release the connection.
+     *
+     * @param serviceContext Context of the REST invocation
+     * @return Streaming response, or null if the request failed
+     * @throws ResponseTooLargeException if the Content-Length exceeds the maximum response size. The connection has
+     *                                   been aborted.
+     */
+    public static StreamingServiceResponse stream(ServiceContext serviceContext) {
+        StreamingServiceResponse serviceResponse = null;
+        String scheme = serviceContext.isSecureInvocation() ? RequestConstants.HTTPS : RequestConstants.HTTP;
+        HttpResponse response = null;
+        try {
+            notifyPending(getRequestProgressListener(serviceContext));
+            HttpHost targetHost = new HttpHost(serviceContext.getTargetDomain(), serviceContext.getPort(), scheme);
+            HttpClient httpClient = getHttpClient(serviceContext);
+
+            response = execute(httpClient, targetHost, serviceContext);
+            serviceResponse = new StreamingServiceResponse(response, serviceContext.getCharset(), getMaxResponseSize(serviceContext));
+        } catch (ResponseTooLargeException e) {
+            throw e;
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (serviceResponse == null)
+                releaseQuietly(response);
+        }
+        return serviceResponse;
+    }//stream
+
 }//RESTClient
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.serviceaccessor;
+
+/**
+ * Thrown when a request is rejected because both the in-flight limit and the queue of the bulkhead for its host are
+ * full.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public class BulkheadFullException extends ServiceAccessException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+
+}//BulkheadFullException
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.serviceaccessor;
+
+/**
+ * Thrown when the body of a response exceeds the maximum response size of its
+ * {@link com.google.resting.rest.client.HttpContext}. The connection has been aborted by the time this is thrown.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public class ResponseTooLargeException extends ServiceAccessException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long maxResponseSize;
+
+    private final long contentLength;
+
+    public ResponseTooLargeException(long maxResponseSize, long contentLength) {
+        super("Response body exceeds the maximum size of " + maxResponseSize + " bytes"
+                + (contentLength >= 0 ? " (Content-Length " + contentLength + ")" : ""));
+        this.maxResponseSize = maxResponseSize;
+        this.contentLength = contentLength;
+    }
+
+    public long getMaxResponseSize() {
+        return maxResponseSize;
+    }
+
+    /**
+     * @return Content-Length announced by the server, -1 if the body was not announced with a length
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+}//ResponseTooLargeException
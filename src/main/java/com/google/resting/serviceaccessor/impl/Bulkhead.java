@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.serviceaccessor.impl;
+
+import com.google.resting.serviceaccessor.BulkheadFullException;
+import com.google.resting.serviceaccessor.ServiceAccessException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for one host and port. At most maxConcurrentRequests requests are in flight, at most
+ * maxQueuedRequests further requests wait for a slot, and any request beyond that fails fast with a
+ * {@link BulkheadFullException}.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public final class Bulkhead {
+
+    private static final ConcurrentMap<String, Bulkhead> BULKHEADS = new ConcurrentHashMap<String, Bulkhead>();
+
+    private final String host;
+
+    private final int maxConcurrentRequests;
+
+    private final int maxQueuedRequests;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private Bulkhead(String host, int maxConcurrentRequests, int maxQueuedRequests) {
+        this.host = host;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxQueuedRequests = maxQueuedRequests;
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+    }//Bulkhead
+
+    /**
+     * Returns the bulkhead of the host and port, creating it with the given limits if it does not exist yet. The limits
+     * of the first caller win.
+     */
+    static Bulkhead forHost(String targetDomain, int port, int maxConcurrentRequests, int maxQueuedRequests) {
+        String host = targetDomain + ":" + port;
+        Bulkhead bulkhead = BULKHEADS.get(host);
+        if (bulkhead == null) {
+            Bulkhead created = new Bulkhead(host, maxConcurrentRequests, maxQueuedRequests);
+            bulkhead = BULKHEADS.putIfAbsent(host, created);
+            if (bulkhead == null)
+                bulkhead = created;
+        }
+        return bulkhead;
+    }//forHost
+
+    /**
+     * @return Bulkheads created so far, keyed by host:port
+     */
+    public static Map<String, Bulkhead> getBulkheads() {
+        return Collections.unmodifiableMap(BULKHEADS);
+    }//getBulkheads
+
+    /**
+     * Takes a slot, waiting in the queue if all slots are taken. Slots are handed out in arrival order, so a new request
+     * does not overtake the queued ones.
+     *
+     * @throws BulkheadFullException if the queue is full as well
+     * @throws ServiceAccessException if the thread is interrupted while queued
+     */
+    void acquire() {
+        try {
+            //Unlike tryAcquire(), a timed tryAcquire respects the fairness of the semaphore
+            if (permits.tryAcquire(0, TimeUnit.SECONDS))
+                return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceAccessException("Interrupted while entering the bulkhead for " + host, e);
+        }
+        if (queueDepth.incrementAndGet() > maxQueuedRequests) {
+            queueDepth.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            throw new BulkheadFullException("Bulkhead for " + host + " is full: " + maxConcurrentRequests
+                    + " requests in flight and " + maxQueuedRequests + " queued");
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceAccessException("Interrupted while queued in the bulkhead for " + host, e);
+        } finally {
+            queueDepth.decrementAndGet();
+        }
+    }//acquire
+
+    void release() {
+        permits.release();
+    }//release
+
+    public String getHost() {
+        return host;
+    }//getHost
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }//getMaxConcurrentRequests
+
+    public int getMaxQueuedRequests() {
+        return maxQueuedRequests;
+    }//getMaxQueuedRequests
+
+    public int getInFlightCount() {
+        return maxConcurrentRequests - permits.availablePermits();
+    }//getInFlightCount
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }//getQueueDepth
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }//getRejectedCount
+
+    @Override
+    public String toString() {
+        return "Bulkhead[" + host + ", inFlight=" + getInFlightCount() + ", queueDepth=" + getQueueDepth()
+                + ", rejected=" + getRejectedCount() + "]";
+    }//toString
+
+}//Bulkhead
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.serviceaccessor.impl;
+
+import com.google.resting.serviceaccessor.CircuitOpenException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Circuit breaker of one endpoint, i.e. host, port and context path. The outcomes of the latest calls are kept in a
+ * sliding window; when the failure rate over the window reaches the threshold the circuit opens and calls fail fast
+ * with a {@link CircuitOpenException}. After the open duration a single trial call is let through (half-open): its
+ * success closes the circuit, its failure opens it again. Every permission carries the generation of the circuit it
+ * was granted in; outcomes of calls from an earlier generation, such as a slow call admitted before the circuit
+ * opened, are dropped.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Number of outcomes the window needs before the failure rate is evaluated, unless the window is smaller.
+     */
+    static final int MIN_CALLS = 10;
+
+    private static final ConcurrentMap<String, CircuitBreaker> CIRCUIT_BREAKERS = new ConcurrentHashMap<String, CircuitBreaker>();
+
+    private final String endpoint;
+
+    private final double failureRateThreshold;
+
+    private final long openDuration;
+
+    private final boolean[] failures;
+
+    private int recordedCount;
+
+    private int failureCount;
+
+    private int position;
+
+    private State state = State.CLOSED;
+
+    private long openedAt;
+
+    private boolean trialInFlight;
+
+    private long generation;
+
+    private long rejectedCount;
+
+    private CircuitBreaker(String endpoint, double failureRateThreshold, int windowSize, long openDuration) {
+        this.endpoint = endpoint;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.failures = new boolean[windowSize];
+    }//CircuitBreaker
+
+    /**
+     * Returns the circuit breaker of the endpoint, creating it with the given settings if it does not exist yet. The
+     * settings of the first caller win.
+     */
+    static CircuitBreaker forEndpoint(String targetDomain, int port, String contextPath, double failureRateThreshold, int windowSize, long openDuration) {
+        String endpoint = targetDomain + ":" + port + contextPath;
+        CircuitBreaker circuitBreaker = CIRCUIT_BREAKERS.get(endpoint);
+        if (circuitBreaker == null) {
+            CircuitBreaker created = new CircuitBreaker(endpoint, failureRateThreshold, windowSize, openDuration);
+            circuitBreaker = CIRCUIT_BREAKERS.putIfAbsent(endpoint, created);
+            if (circuitBreaker == null)
+                circuitBreaker = created;
+        }
+        return circuitBreaker;
+    }//forEndpoint
+
+    /**
+     * @return Circuit breakers created so far, keyed by host:port followed by the context path
+     */
+    public static Map<String, CircuitBreaker> getCircuitBreakers() {
+        return Collections.unmodifiableMap(CIRCUIT_BREAKERS);
+    }//getCircuitBreakers
+
+    /**
+     * Lets a call through, or fails fast if the circuit is open.
+     *
+     * @return Permission to pass to {@link #onResult(long, boolean)} or {@link #onIgnored(long)}
+     * @throws CircuitOpenException if the circuit is open, or half-open with the trial call still in flight
+     */
+    synchronized long acquirePermission() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDuration)
+            state = State.HALF_OPEN;
+        if (state == State.CLOSED)
+            return generation;
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            //The trial gets a generation of its own, so only its outcome decides the half-open circuit
+            trialInFlight = true;
+            return ++generation;
+        }
+        rejectedCount++;
+        throw new CircuitOpenException("Circuit breaker for " + endpoint + " is " + state);
+    }//acquirePermission
+
+    /**
+     * Records the outcome of a call which was let through.
+     *
+     * @param permission Permission returned by {@link #acquirePermission()} for the call
+     */
+    synchronized void onResult(long permission, boolean success) {
+        if (permission != generation)
+            return;
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            if (success) {
+                reset();
+                state = State.CLOSED;
+                generation++;
+            } else {
+                open();
+            }
+            return;
+        }
+        if (state == State.OPEN)
+            return;
+
+        if (recordedCount == failures.length) {
+            if (failures[position])
+                failureCount--;
+        } else {
+            recordedCount++;
+        }
+        failures[position] = !success;
+        if (!success)
+            failureCount++;
+        position = (position + 1) % failures.length;
+
+        if (recordedCount >= Math.min(MIN_CALLS, failures.length) && getFailureRate() >= failureRateThreshold)
+            open();
+    }//onResult
+
+    /**
+     * Releases the permission of a call which was not sent after all, without recording an outcome.
+     *
+     * @param permission Permission returned by {@link #acquirePermission()} for the call
+     */
+    synchronized void onIgnored(long permission) {
+        if (permission == generation && state == State.HALF_OPEN)
+            trialInFlight = false;
+    }//onIgnored
+
+    private void open() {
+        reset();
+        state = State.OPEN;
+        generation++;
+        openedAt = System.currentTimeMillis();
+    }//open
+
+    private void reset() {
+        recordedCount = 0;
+        failureCount = 0;
+        position = 0;
+    }//reset
+
+    public String getEndpoint() {
+        return endpoint;
+    }//getEndpoint
+
+    public synchronized State getState() {
+        return state;
+    }//getState
+
+    /**
+     * @return Failure rate over the current window, between 0 and 1
+     */
+    public synchronized double getFailureRate() {
+        return recordedCount == 0 ? 0 : (double) failureCount / recordedCount;
+    }//getFailureRate
+
+    /**
+     * @return Number of calls which failed fast
+     */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }//getRejectedCount
+
+    @Override
+    public synchronized String toString() {
+        return "CircuitBreaker[" + endpoint + ", state=" + state + ", failureRate=" + getFailureRate()
+                + ", rejected=" + rejectedCount + "]";
+    }//toString
+
+}//CircuitBreaker
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.serviceaccessor.impl;
+
+import com.google.resting.component.ServiceContext;
+import com.google.resting.component.impl.ServiceResponse;
+import com.google.resting.util.IOUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Hedged execution of an idempotent request. The first attempt is sent at once; if it has not completed within the
+ * rolling p95 latency of the host a second attempt is sent. The first successful response completes the result and
+ * the other attempt is cancelled.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+final class HedgedRequest {
+
+    /**
+     * Number of samples a host needs before requests to it are hedged.
+     */
+    static final int MIN_SAMPLES = 20;
+
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    private static final AtomicLong HEDGE_COUNT = new AtomicLong();
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "resting-hedge");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final CompletableFuture<ServiceResponse> result = new CompletableFuture<ServiceResponse>();
+
+    private final AtomicInteger pendingAttempts = new AtomicInteger();
+
+    private volatile CompletableFuture<ServiceResponse> first;
+
+    private volatile CompletableFuture<ServiceResponse> second;
+
+    private HedgedRequest() {
+    }
+
+    static long getHedgeCount() {
+        return HEDGE_COUNT.get();
+    }//getHedgeCount
+
+    static CompletableFuture<ServiceResponse> execute(final ServiceContext serviceContext, final LatencyHistogram histogram) {
+        return execute(new Supplier<CompletableFuture<ServiceResponse>>() {
+            public CompletableFuture<ServiceResponse> get() {
+                return ServiceAccessor.invokeAsync(serviceContext, histogram);
+            }
+        }, histogram);
+    }//execute
+
+    /**
+     * @param invocation Sends one attempt of the request
+     * @param histogram  Latencies of the host, which decide whether and when the second attempt is sent
+     */
+    static CompletableFuture<ServiceResponse> execute(final Supplier<CompletableFuture<ServiceResponse>> invocation, LatencyHistogram histogram) {
+        final HedgedRequest request = new HedgedRequest();
+        request.first = request.attempt(invocation);
+        if (histogram.getWindowCount() >= MIN_SAMPLES && !request.result.isDone()) {
+            long delay = Math.max(1, histogram.getPercentile(HEDGE_PERCENTILE));
+            SCHEDULER.schedule(new Runnable() {
+                public void run() {
+                    if (request.result.isDone())
+                        return;
+                    HEDGE_COUNT.incrementAndGet();
+                    request.second = request.attempt(invocation);
+                    if (request.result.isDone())
+                        request.second.cancel(true);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        request.result.whenComplete(new BiConsumer<ServiceResponse, Throwable>() {
+            public void accept(ServiceResponse serviceResponse, Throwable throwable) {
+                cancel(request.first);
+                cancel(request.second);
+            }
+        });
+        return request.result;
+    }//execute
+
+    private CompletableFuture<ServiceResponse> attempt(Supplier<CompletableFuture<ServiceResponse>> invocation) {
+        pendingAttempts.incrementAndGet();
+        CompletableFuture<ServiceResponse> attempt = invocation.get();
+        attempt.whenComplete(new BiConsumer<ServiceResponse, Throwable>() {
+            public void accept(ServiceResponse serviceResponse, Throwable throwable) {
+                boolean last = pendingAttempts.decrementAndGet() == 0;
+                if (throwable == null) {
+                    //The losing response is never read, so release its connection and spill file
+                    if (!result.complete(serviceResponse))
+                        IOUtils.closeQuietly(serviceResponse);
+                } else if (last)
+                    result.completeExceptionally(throwable);
+            }
+        });
+        return attempt;
+    }//attempt
+
+    private static void cancel(CompletableFuture<ServiceResponse> attempt) {
+        if (attempt != null && !attempt.isDone())
+            attempt.cancel(true);
+    }//cancel
+
+}//HedgedRequest
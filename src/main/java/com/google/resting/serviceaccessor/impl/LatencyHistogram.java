@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.serviceaccessor.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Rolling latency histogram of one host and port. Keeps the latest {@link #WINDOW_SIZE} samples; percentiles are
+ * computed over that window and cached until enough new samples have arrived.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public final class LatencyHistogram {
+
+    public static final int WINDOW_SIZE = 1024;
+
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private static final ConcurrentMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    private final String host;
+
+    private final long[] samples = new long[WINDOW_SIZE];
+
+    private long count;
+
+    private long[] sorted = new long[0];
+
+    private long sortedAtCount = -1;
+
+    private LatencyHistogram(String host) {
+        this.host = host;
+    }//LatencyHistogram
+
+    static LatencyHistogram forHost(String targetDomain, int port) {
+        String host = targetDomain + ":" + port;
+        LatencyHistogram histogram = HISTOGRAMS.get(host);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram(host);
+            histogram = HISTOGRAMS.putIfAbsent(host, created);
+            if (histogram == null)
+                histogram = created;
+        }
+        return histogram;
+    }//forHost
+
+    /**
+     * @return Histograms recorded so far, keyed by host:port
+     */
+    public static Map<String, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(HISTOGRAMS);
+    }//getHistograms
+
+    synchronized void record(long latencyMillis) {
+        samples[(int) (count % WINDOW_SIZE)] = latencyMillis;
+        count++;
+    }//record
+
+    public String getHost() {
+        return host;
+    }//getHost
+
+    /**
+     * @return Total number of samples recorded, including those which have left the window
+     */
+    public synchronized long getCount() {
+        return count;
+    }//getCount
+
+    /**
+     * @return Number of samples in the current window
+     */
+    public synchronized int getWindowCount() {
+        return (int) Math.min(count, WINDOW_SIZE);
+    }//getWindowCount
+
+    /**
+     * Returns the latency below which the given fraction of the samples in the window falls.
+     *
+     * @param percentile Fraction between 0 and 1, e.g. 0.95
+     * @return Latency in milliseconds, or -1 if no sample has been recorded
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (count == 0)
+            return -1;
+        if (sortedAtCount < 0 || count - sortedAtCount >= RECOMPUTE_INTERVAL || (count < RECOMPUTE_INTERVAL && count != sortedAtCount)) {
+            sorted = Arrays.copyOf(samples, getWindowCount());
+            Arrays.sort(sorted);
+            sortedAtCount = count;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }//getPercentile
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram[" + host + ", count=" + getCount() + ", p50=" + getPercentile(0.5)
+                + ", p95=" + getPercentile(0.95) + ", p99=" + getPercentile(0.99) + "]";
+    }//toString
+
+}//LatencyHistogram
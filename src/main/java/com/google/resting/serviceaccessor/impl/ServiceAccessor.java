@@ -20,8 +20,14 @@ package com.google.resting.serviceaccessor.impl;
 import com.google.resting.component.ServiceContext;
 import com.google.resting.component.Verb;
 import com.google.resting.component.impl.ServiceResponse;
+import com.google.resting.component.impl.StreamingServiceResponse;
+import com.google.resting.rest.client.HttpContext;
+import com.google.resting.rest.client.impl.AsyncRESTClient;
 import com.google.resting.rest.client.impl.RESTClient;
 import com.google.resting.serviceaccessor.Accessor;
+import com.google.resting.serviceaccessor.CircuitOpenException;
+import com.google.resting.serviceaccessor.ResponseTooLargeException;
+import com.google.resting.serviceaccessor.ServiceAccessException;
 import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 
@@ -29,6 +35,10 @@ import java.io.UnsupportedEncodingException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 import static com.google.resting.rest.util.oauth.SignatureUtil.getSignature;
 
@@ -44,23 +54,204 @@ public final class ServiceAccessor implements Accessor {
 
     private static final String SIGNATURE = "signature";
 
+    private static final AtomicLong OVERSIZED_RESPONSE_COUNT = new AtomicLong();
+
     /**
-     * Executes REST request
+     * Executes REST request. If a circuit breaker is configured in the {@link HttpContext}, the request fails fast
+     * while the circuit of its endpoint is open; a response over the maximum response size is a local limit and is not
+     * counted against the endpoint. If a bulkhead is configured, the request then takes a slot in the
+     * bulkhead of its host.
+     *
+     * @throws com.google.resting.serviceaccessor.CircuitOpenException if the circuit breaker of the endpoint is open
+     * @throws com.google.resting.serviceaccessor.BulkheadFullException if the bulkhead of the host is full
+     * @throws com.google.resting.serviceaccessor.ResponseTooLargeException if the response body exceeds the maximum
+     *                                                                      response size of the {@link HttpContext}
      */
     public static ServiceResponse access(ServiceContext serviceContext) {
-        boolean isSecureInvocation = serviceContext.isSecureInvocation();
+        CircuitBreaker circuitBreaker = getCircuitBreaker(serviceContext);
+        if (circuitBreaker == null)
+            return accessBulkhead(serviceContext);
+
+        long permission = circuitBreaker.acquirePermission();
+        ServiceResponse serviceResponse = null;
+        try {
+            serviceResponse = accessBulkhead(serviceContext);
+        } catch (ServiceAccessException e) {
+            //Refused or aborted locally: bulkhead full, interrupted while queued, or response over the size limit
+            circuitBreaker.onIgnored(permission);
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onResult(permission, false);
+            throw e;
+        }
+        circuitBreaker.onResult(permission, isSuccess(serviceResponse));
+        return serviceResponse;
+    }//access
+
+    private static ServiceResponse accessBulkhead(ServiceContext serviceContext) {
+        HttpContext httpContext = serviceContext.getHttpContext();
+        if (httpContext == null || !httpContext.isBulkheadEnabled())
+            return invoke(serviceContext);
+
+        Bulkhead bulkhead = Bulkhead.forHost(serviceContext.getTargetDomain(), serviceContext.getPort(),
+                httpContext.getBulkheadMaxConcurrentRequests(), httpContext.getBulkheadMaxQueuedRequests());
+        bulkhead.acquire();
+        try {
+            return invoke(serviceContext);
+        } finally {
+            bulkhead.release();
+        }
+    }//accessBulkhead
+
+    private static ServiceResponse invoke(ServiceContext serviceContext) {
+        LatencyHistogram histogram = LatencyHistogram.forHost(serviceContext.getTargetDomain(), serviceContext.getPort());
+        if (isHedged(serviceContext)) {
+            try {
+                return HedgedRequest.execute(serviceContext, histogram).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof ResponseTooLargeException)
+                    throw (ResponseTooLargeException) e.getCause();
+                e.getCause().printStackTrace();
+                return null;
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
         ServiceResponse serviceResponse = null;
-        if (isSecureInvocation)
-            serviceResponse = RESTClient.secureInvoke(serviceContext);
-        else
-            serviceResponse = RESTClient.invoke(serviceContext);
+        try {
+            if (serviceContext.isSecureInvocation())
+                serviceResponse = RESTClient.secureInvoke(serviceContext);
+            else
+                serviceResponse = RESTClient.invoke(serviceContext);
+        } catch (ResponseTooLargeException e) {
+            OVERSIZED_RESPONSE_COUNT.incrementAndGet();
+            throw e;
+        }
+        if (serviceResponse != null)
+            histogram.record(System.currentTimeMillis() - startTime);
 
         //if(validate(serviceResponse))
         //Handle validation properly
         //	System.out.println("[Resting::ServiceAccessor] Service response validation passed");
         return serviceResponse;
 
-    }//access
+    }//invoke
+
+    /**
+     * Executes REST request without blocking the calling thread. The circuit breaker applies as for
+     * {@link #access(ServiceContext)}; a response over the maximum response size is not counted against the
+     * endpoint. No thread is held while the request is in flight, so the bulkhead does not
+     * apply; the connections per host are bounded by the pool of the asynchronous client.
+     *
+     * @return Future which completes exceptionally with a {@link com.google.resting.serviceaccessor.CircuitOpenException}
+     * if the circuit breaker of the endpoint is open
+     */
+    public static CompletableFuture<ServiceResponse> accessAsync(ServiceContext serviceContext) {
+        final CircuitBreaker circuitBreaker = getCircuitBreaker(serviceContext);
+        long acquired = 0;
+        if (circuitBreaker != null) {
+            try {
+                acquired = circuitBreaker.acquirePermission();
+            } catch (CircuitOpenException e) {
+                CompletableFuture<ServiceResponse> rejected = new CompletableFuture<ServiceResponse>();
+                rejected.completeExceptionally(e);
+                return rejected;
+            }
+        }
+
+        LatencyHistogram histogram = LatencyHistogram.forHost(serviceContext.getTargetDomain(), serviceContext.getPort());
+        CompletableFuture<ServiceResponse> result = isHedged(serviceContext) ? HedgedRequest.execute(serviceContext, histogram) : invokeAsync(serviceContext, histogram);
+        if (circuitBreaker != null) {
+            final long permission = acquired;
+            result.whenComplete(new BiConsumer<ServiceResponse, Throwable>() {
+                public void accept(ServiceResponse serviceResponse, Throwable throwable) {
+                    if (throwable instanceof ResponseTooLargeException)
+                        circuitBreaker.onIgnored(permission);
+                    else
+                        circuitBreaker.onResult(permission, throwable == null && isSuccess(serviceResponse));
+                }
+            });
+        }
+        return result;
+    }//accessAsync
+
+    /**
+     * Executes REST request without reading the response body. The circuit breaker applies as for
+     * {@link #access(ServiceContext)}, judged on the status of the response.
+     *
+     * @throws com.google.resting.serviceaccessor.CircuitOpenException if the circuit breaker of the endpoint is open
+     * @throws com.google.resting.serviceaccessor.ResponseTooLargeException if the Content-Length exceeds the maximum
+     *                                                                      response size of the {@link HttpContext}. A
+     *                                                                      body without Content-Length is checked while
+     *                                                                      it is read.
+     */
+    public static StreamingServiceResponse accessStreaming(ServiceContext serviceContext) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(serviceContext);
+        long permission = 0;
+        if (circuitBreaker != null)
+            permission = circuitBreaker.acquirePermission();
+        StreamingServiceResponse serviceResponse;
+        try {
+            serviceResponse = RESTClient.stream(serviceContext);
+        } catch (ResponseTooLargeException e) {
+            OVERSIZED_RESPONSE_COUNT.incrementAndGet();
+            if (circuitBreaker != null)
+                circuitBreaker.onIgnored(permission);
+            throw e;
+        }
+        if (circuitBreaker != null)
+            circuitBreaker.onResult(permission, serviceResponse != null && serviceResponse.getStatusCode() < HttpStatus.SC_INTERNAL_SERVER_ERROR);
+        return serviceResponse;
+    }//accessStreaming
+
+    /**
+     * @return Number of hedge attempts sent so far
+     */
+    public static long getHedgeCount() {
+        return HedgedRequest.getHedgeCount();
+    }//getHedgeCount
+
+    /**
+     * @return Number of responses aborted because their body exceeded the maximum response size of the
+     * {@link HttpContext}
+     */
+    public static long getOversizedResponseCount() {
+        return OVERSIZED_RESPONSE_COUNT.get();
+    }//getOversizedResponseCount
+
+    static CompletableFuture<ServiceResponse> invokeAsync(ServiceContext serviceContext, final LatencyHistogram histogram) {
+        final long startTime = System.currentTimeMillis();
+        CompletableFuture<ServiceResponse> result = AsyncRESTClient.invoke(serviceContext);
+        result.whenComplete(new BiConsumer<ServiceResponse, Throwable>() {
+            public void accept(ServiceResponse serviceResponse, Throwable throwable) {
+                if (throwable == null)
+                    histogram.record(System.currentTimeMillis() - startTime);
+                else if (throwable instanceof ResponseTooLargeException)
+                    OVERSIZED_RESPONSE_COUNT.incrementAndGet();
+            }
+        });
+        return result;
+    }//invokeAsync
+
+    private static CircuitBreaker getCircuitBreaker(ServiceContext serviceContext) {
+        HttpContext httpContext = serviceContext.getHttpContext();
+        if (httpContext == null || !httpContext.isCircuitBreakerEnabled())
+            return null;
+        return CircuitBreaker.forEndpoint(serviceContext.getTargetDomain(), serviceContext.getPort(), serviceContext.getContextPathElement(),
+                httpContext.getCircuitBreakerFailureRateThreshold(), httpContext.getCircuitBreakerWindowSize(), httpContext.getCircuitBreakerOpenDuration());
+    }//getCircuitBreaker
+
+    private static boolean isSuccess(ServiceResponse serviceResponse) {
+        return serviceResponse != null && serviceResponse.getStatusCode() < HttpStatus.SC_INTERNAL_SERVER_ERROR;
+    }//isSuccess
+
+    private static boolean isHedged(ServiceContext serviceContext) {
+        HttpContext httpContext = serviceContext.getHttpContext();
+        return httpContext != null && httpContext.isHedgedRequests() && serviceContext.getVerb() == Verb.GET;
+    }//isHedged
 
 
     /**
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.transform;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+
+import java.lang.reflect.Type;
+
+/**
+ * Shared {@link Gson} instance of the JSON transformers. Creating a Gson instance is costly, so it is done once and
+ * reused by all requests; the instance itself caches the adapter resolved for each type. Safe for concurrent use.
+ * <p>
+ * Custom adapters are registered as with {@link GsonBuilder}. Registering an adapter replaces the shared instance, and
+ * with it the adapters it has cached; transformations in progress finish with the previous instance.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public final class GsonRegistry {
+
+    private static final GsonBuilder GSON_BUILDER = new GsonBuilder();
+
+    private static volatile Gson gson = GSON_BUILDER.create();
+
+    private GsonRegistry() {
+    }
+
+    /**
+     * @return Shared Gson instance, including the registered adapters
+     */
+    public static Gson getGson() {
+        return gson;
+    }//getGson
+
+    /**
+     * Returns the type adapter of the class for binding from a {@link com.google.gson.stream.JsonReader}. The adapter is
+     * resolved on first use and cached by the shared Gson instance.
+     *
+     * @param targetType Class to bind JSON to
+     * @return Type adapter of the class
+     */
+    public static <T> TypeAdapter<T> getAdapter(Class<T> targetType) {
+        return gson.getAdapter(targetType);
+    }//getAdapter
+
+    /**
+     * Binds the JSON document to the target type with the shared Gson instance, see
+     * {@link Gson#fromJson(String, Class)}.
+     *
+     * @param json       JSON document
+     * @param targetType Class to bind JSON to
+     * @return Entity, or null if the document is null or empty
+     * @throws JsonSyntaxException if the document is not valid JSON for the target type
+     */
+    public static <T> T fromJson(String json, Class<T> targetType) {
+        return gson.fromJson(json, targetType);
+    }//fromJson
+
+    /**
+     * Registers a custom serializer or deserializer for the type, see
+     * {@link GsonBuilder#registerTypeAdapter(Type, Object)}.
+     *
+     * @param type        Type to register the adapter for
+     * @param typeAdapter {@link TypeAdapter}, {@link com.google.gson.JsonSerializer},
+     *                    {@link com.google.gson.JsonDeserializer} or {@link com.google.gson.InstanceCreator}
+     */
+    public static synchronized void registerTypeAdapter(Type type, Object typeAdapter) {
+        GSON_BUILDER.registerTypeAdapter(type, typeAdapter);
+        gson = GSON_BUILDER.create();
+    }//registerTypeAdapter
+
+    /**
+     * Registers a custom serializer or deserializer for the class and its subclasses, see
+     * {@link GsonBuilder#registerTypeHierarchyAdapter(Class, Object)}.
+     */
+    public static synchronized void registerTypeHierarchyAdapter(Class<?> baseType, Object typeAdapter) {
+        GSON_BUILDER.registerTypeHierarchyAdapter(baseType, typeAdapter);
+        gson = GSON_BUILDER.create();
+    }//registerTypeHierarchyAdapter
+
+    /**
+     * Registers a factory of type adapters, see {@link GsonBuilder#registerTypeAdapterFactory(TypeAdapterFactory)}.
+     */
+    public static synchronized void registerTypeAdapterFactory(TypeAdapterFactory factory) {
+        GSON_BUILDER.registerTypeAdapterFactory(factory);
+        gson = GSON_BUILDER.create();
+    }//registerTypeAdapterFactory
+
+}//GsonRegistry
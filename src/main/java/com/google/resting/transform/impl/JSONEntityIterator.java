@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.transform.impl;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.google.resting.component.impl.StreamingServiceResponse;
+import com.google.resting.transform.GsonRegistry;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator which binds the entities of a JSON response one at a time while the body is read from the connection, so
+ * that no more than one entity is held in memory. With an alias, the iterator seeks the key among the keys of the top
+ * level object and returns the elements of the aliased array, or the aliased object; a missing key gives no entities.
+ * Without an alias, it returns the elements of a top level array, or the top level object. An empty body, such as
+ * that of a 204 response, gives no entities.
+ * <p>
+ * Closing the iterator releases the connection. Reaching the end of the entities reads the rest of the document and
+ * releases the connection as well, so that it can be reused. Errors while reading are thrown as
+ * {@link JsonSyntaxException} or {@link JsonIOException}, after releasing the connection.
+ *
+ * @param <T> Target type
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public class JSONEntityIterator<T> implements Iterator<T>, Closeable {
+
+    private final StreamingServiceResponse serviceResponse;
+
+    private final TypeAdapter<T> adapter;
+
+    private JsonReader reader;
+
+    //true while the entities are the elements of an array
+    private boolean array;
+
+    //true once the single entity, or the end of the array, has been reached
+    private boolean exhausted;
+
+    private boolean closed;
+
+    /**
+     * @param serviceResponse Unbuffered response to read the entities from
+     * @param targetType      Class of the entities
+     * @param singleAlias     Key of the entities in the top level object, may be null
+     */
+    public JSONEntityIterator(StreamingServiceResponse serviceResponse, Class<T> targetType, String singleAlias) {
+        this.serviceResponse = serviceResponse;
+        this.adapter = GsonRegistry.getAdapter(targetType);
+        try {
+            this.reader = new JsonReader(serviceResponse.getReader());
+            this.reader.setLenient(true);
+            seek(singleAlias);
+        } catch (IOException e) {
+            throw fail(e);
+        } catch (IllegalStateException e) {
+            throw fail(e);
+        } catch (RuntimeException e) {
+            closeQuietly();
+            throw e;
+        }
+    }//JSONEntityIterator
+
+    private void seek(String singleAlias) throws IOException {
+        JsonToken token = null;
+        try {
+            token = reader.peek();
+        } catch (EOFException e) {
+            //The body is empty
+            exhausted = true;
+            close();
+            return;
+        }
+        if (singleAlias != null) {
+            if (token != JsonToken.BEGIN_OBJECT)
+                throw new IllegalStateException("Expected an object holding \"" + singleAlias + "\" but was " + token);
+            reader.beginObject();
+            boolean found = false;
+            while (!found && reader.hasNext()) {
+                if (singleAlias.equals(reader.nextName()))
+                    found = true;
+                else
+                    reader.skipValue();
+            }
+            if (!found) {
+                finish();
+                return;
+            }
+            token = reader.peek();
+            if (token != JsonToken.BEGIN_ARRAY && token != JsonToken.BEGIN_OBJECT)
+                throw new IllegalStateException("Expected an array or object at \"" + singleAlias + "\" but was " + token);
+        }
+        if (token == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            array = true;
+        }
+    }//seek
+
+    public synchronized boolean hasNext() {
+        if (exhausted || closed)
+            return false;
+        if (!array)
+            return true;
+        try {
+            if (reader.hasNext())
+                return true;
+            reader.endArray();
+            finish();
+            return false;
+        } catch (IOException e) {
+            throw fail(e);
+        } catch (IllegalStateException e) {
+            throw fail(e);
+        }
+    }//hasNext
+
+    public synchronized T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        try {
+            T entity = adapter.read(reader);
+            if (!array)
+                finish();
+            return entity;
+        } catch (IOException e) {
+            throw fail(e);
+        } catch (IllegalStateException e) {
+            throw fail(e);
+        } catch (RuntimeException e) {
+            closeQuietly();
+            throw e;
+        }
+    }//next
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }//remove
+
+    /**
+     * Releases the connection. Entities which have not been read are discarded.
+     */
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        exhausted = true;
+        serviceResponse.close();
+    }//close
+
+    /**
+     * Reads the rest of the document, so that the connection is released to the pool instead of being aborted.
+     */
+    private void finish() throws IOException {
+        exhausted = true;
+        while (reader.peek() != JsonToken.END_DOCUMENT) {
+            JsonToken token = reader.peek();
+            if (token == JsonToken.END_OBJECT)
+                reader.endObject();
+            else if (token == JsonToken.END_ARRAY)
+                reader.endArray();
+            else if (token == JsonToken.NAME)
+                reader.nextName();
+            else
+                reader.skipValue();
+        }
+        close();
+    }//finish
+
+    private RuntimeException fail(Exception e) {
+        closeQuietly();
+        if (e instanceof MalformedJsonException || e instanceof IllegalStateException)
+            return new JsonSyntaxException(e);
+        return new JsonIOException(e);
+    }//fail
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }//closeQuietly
+
+}//JSONEntityIterator
@@ -16,7 +16,6 @@
 
 package com.google.resting.transform.impl;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonParseException;
 import com.google.resting.component.Alias;
 import com.google.resting.component.impl.ServiceResponse;
@@ -24,10 +23,12 @@ import com.google.resting.component.impl.json.JSONAlias;
 import com.google.resting.json.JSONArray;
 import com.google.resting.json.JSONException;
 import com.google.resting.json.JSONObject;
+import com.google.resting.transform.GsonRegistry;
 import com.google.resting.transform.Transformer;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Base transformer for transforming JSON response.
@@ -39,10 +40,9 @@ import java.util.Map.Entry;
 public class JSONTransformer<T> implements Transformer<T, ServiceResponse> {
 
     public T createEntity(String source, Class<T> targetType) {
-        Gson gson = new Gson();
         T dest = null;
         try {
-            dest = gson.fromJson(source, targetType);
+            dest = GsonRegistry.fromJson(source, targetType);
 
         } catch (JsonParseException e) {
             e.printStackTrace();
@@ -136,8 +136,15 @@ public class JSONTransformer<T> implements Transformer<T, ServiceResponse> {
         return dests;
     }//getEntityList
 
+    /**
+     * Binds the entities of every alias of the alias map. If the alias is parallel, see
+     * {@link JSONAlias#setParallel(boolean)}, the aliases and the chunks of large arrays are bound on the common
+     * fork-join pool.
+     */
     @SuppressWarnings("unchecked")
     public Map<String, List> getEntityLists(ServiceResponse serviceResponse, JSONAlias alias) {
+        if (alias.isParallel())
+            return ParallelJSONBinder.bind(serviceResponse.getResponseString(), alias.getAliasTypeMap(), ForkJoinPool.commonPool());
         Map<String, List> destMap = new HashMap<String, List>();
         List dests = null;
         JSONObject responseObject = null;
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.transform.impl;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.resting.transform.GsonRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Binds several aliases of a JSON response in parallel on a {@link ForkJoinPool}. The response is parsed once into a
+ * tree; the aliases are then bound concurrently, and arrays longer than {@link #CHUNK_SIZE} are split into chunks
+ * which are bound concurrently as well. Every element is written to its own slot, so the lists keep the order of the
+ * response and the map keeps the order of the alias map, whatever the scheduling. Errors are handled as by the
+ * sequential {@link JSONTransformer#getEntityLists}: an element which cannot be bound yields null, and an array with
+ * an element which is not an object ends the binding, leaving the aliases bound before it.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+final class ParallelJSONBinder {
+
+    static final int CHUNK_SIZE = 1024;
+
+    private ParallelJSONBinder() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, List> bind(String responseString, Map<String, Class> aliasTypeMap, ForkJoinPool pool) {
+        Map<String, List> destMap = new LinkedHashMap<String, List>();
+        JsonElement root = null;
+        try {
+            root = new JsonParser().parse(responseString);
+        } catch (JsonParseException e) {
+            e.printStackTrace();
+            return destMap;
+        }
+        if (!root.isJsonObject())
+            return destMap;
+        JsonObject responseObject = root.getAsJsonObject();
+
+        Map<String, Object[]> results = new LinkedHashMap<String, Object[]>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        for (Map.Entry<String, Class> entry : aliasTypeMap.entrySet()) {
+            JsonElement aliasedElement = responseObject.get(entry.getKey());
+            if (aliasedElement == null)
+                continue;
+            TypeAdapter<Object> adapter = GsonRegistry.getAdapter((Class<Object>) entry.getValue());
+            JsonArray elements = null;
+            if (aliasedElement.isJsonArray()) {
+                elements = aliasedElement.getAsJsonArray();
+                if (!containsOnlyObjects(elements))
+                    break;
+            } else {
+                elements = new JsonArray();
+                elements.add(aliasedElement);
+            }
+            Object[] dests = new Object[elements.size()];
+            results.put(entry.getKey(), dests);
+            tasks.add(new BindTask(elements, 0, elements.size(), adapter, dests));
+        }
+
+        final List<ForkJoinTask<?>> aliasTasks = tasks;
+        pool.invoke(new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                invokeAll(aliasTasks);
+            }
+        });
+
+        for (Map.Entry<String, Object[]> entry : results.entrySet()) {
+            destMap.put(entry.getKey(), new ArrayList<Object>(Arrays.asList(entry.getValue())));
+        }
+        return destMap;
+    }//bind
+
+    private static boolean containsOnlyObjects(JsonArray elements) {
+        for (JsonElement element : elements) {
+            if (!element.isJsonObject())
+                return false;
+        }
+        return true;
+    }//containsOnlyObjects
+
+    /**
+     * Binds the elements from start to end into the same slots of the destination array, splitting the range while it
+     * is longer than a chunk.
+     */
+    private static class BindTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final JsonArray elements;
+
+        private final int start;
+
+        private final int end;
+
+        private final TypeAdapter<Object> adapter;
+
+        private final Object[] dests;
+
+        BindTask(JsonArray elements, int start, int end, TypeAdapter<Object> adapter, Object[] dests) {
+            this.elements = elements;
+            this.start = start;
+            this.end = end;
+            this.adapter = adapter;
+            this.dests = dests;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= CHUNK_SIZE) {
+                for (int i = start; i < end; i++) {
+                    try {
+                        dests[i] = adapter.fromJsonTree(elements.get(i));
+                    } catch (JsonParseException e) {
+                        e.printStackTrace();
+                    }
+                }
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new BindTask(elements, start, middle, adapter, dests), new BindTask(elements, middle, end, adapter, dests));
+        }
+
+    }//BindTask
+
+}//ParallelJSONBinder
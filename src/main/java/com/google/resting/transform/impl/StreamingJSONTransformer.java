@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.transform.impl;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.resting.component.Alias;
+import com.google.resting.component.content.IContentData;
+import com.google.resting.component.content.contentdecorator.StringContentData;
+import com.google.resting.component.impl.ServiceResponse;
+import com.google.resting.component.impl.json.JSONAlias;
+import com.google.resting.transform.GsonRegistry;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JSON transformer which reads the response token by token with Gson's {@link JsonReader}. It seeks the alias among
+ * the keys of the top level object, skipping the other values without building them, and binds the aliased object or
+ * the elements of the aliased array straight to the target type. The response is read once, to the end of the top
+ * level object; no intermediate tree or per-element string is built.
+ * <p>
+ * Responses which {@link JSONTransformer} handles by falling back to the raw response string (a top level value which
+ * is not an object, an aliased value which is neither object nor array, an array element which is not an object,
+ * duplicate top level keys, malformed JSON) are handed to it unchanged. Duplicate keys inside an entity are bound as
+ * Gson binds them, the last value winning.
+ *
+ * @param <T> Target type
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public class StreamingJSONTransformer<T> extends JSONTransformer<T> {
+
+    @Override
+    public List<T> getEntityList(ServiceResponse serviceResponse, Class<T> targetType, Alias alias) {
+        IContentData contentData = serviceResponse.getContentData();
+        if (!(alias instanceof JSONAlias) || ((JSONAlias) alias).getSingleAlias() == null)
+            return super.getEntityList(serviceResponse, targetType, alias);
+        if (!(contentData instanceof StringContentData))
+            return super.getEntityList(serviceResponse, targetType, alias);
+        try {
+            return readEntityList(((StringContentData) contentData).getReader(), ((JSONAlias) alias).getSingleAlias(), targetType);
+        } catch (NotStreamableException e) {
+            return super.getEntityList(serviceResponse, targetType, alias);
+        }
+    }//getEntityList
+
+    @Override
+    public List<T> getEntityList(String responseString, Class<T> targetType, Alias alias) {
+        if (!(alias instanceof JSONAlias) || ((JSONAlias) alias).getSingleAlias() == null)
+            return super.getEntityList(responseString, targetType, alias);
+        try {
+            return readEntityList(new StringReader(responseString), ((JSONAlias) alias).getSingleAlias(), targetType);
+        } catch (NotStreamableException e) {
+            return super.getEntityList(responseString, targetType, alias);
+        }
+    }//getEntityList
+
+    /**
+     * Reads the entities under the alias.
+     *
+     * @return Entities, or null if the top level object has no such key
+     * @throws NotStreamableException if the response has to be handled by {@link JSONTransformer}
+     */
+    private List<T> readEntityList(Reader source, String singleAlias, Class<T> targetType) {
+        JsonReader reader = new JsonReader(source);
+        reader.setLenient(true);
+        try {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT)
+                throw new NotStreamableException();
+            reader.beginObject();
+            Set<String> names = new HashSet<String>();
+            List<T> dests = null;
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                //JSONTransformer rejects duplicate keys
+                if (!names.add(name))
+                    throw new NotStreamableException();
+                if (singleAlias.equals(name))
+                    dests = readEntities(reader, targetType);
+                else
+                    reader.skipValue();
+            }
+            reader.endObject();
+            return dests;
+        } catch (IOException e) {
+            throw new NotStreamableException();
+        } catch (IllegalStateException e) {
+            throw new NotStreamableException();
+        } catch (JsonParseException e) {
+            throw new NotStreamableException();
+        }
+    }//readEntityList
+
+    /**
+     * Reads the aliased object, or the objects of the aliased array.
+     *
+     * @throws NotStreamableException if the value is neither object nor array, or the array holds other values
+     */
+    private List<T> readEntities(JsonReader reader, Class<T> targetType) throws IOException {
+        TypeAdapter<T> adapter = GsonRegistry.getAdapter(targetType);
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_ARRAY) {
+            List<T> dests = new ArrayList<T>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() != JsonToken.BEGIN_OBJECT)
+                    throw new NotStreamableException();
+                dests.add(adapter.read(reader));
+            }
+            reader.endArray();
+            return dests;
+        } else if (token == JsonToken.BEGIN_OBJECT) {
+            List<T> dests = new ArrayList<T>(1);
+            dests.add(adapter.read(reader));
+            return dests;
+        }
+        throw new NotStreamableException();
+    }//readEntities
+
+    /**
+     * Signals that the response has to be transformed by {@link JSONTransformer} instead.
+     */
+    private static class NotStreamableException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        NotStreamableException() {
+            super(null, null, false, false);
+        }
+
+    }//NotStreamableException
+
+}//StreamingJSONTransformer
@@ -20,6 +20,7 @@ import com.google.resting.component.Alias;
 import com.google.resting.component.impl.ServiceResponse;
 import com.google.resting.component.impl.xml.Priority;
 import com.google.resting.component.impl.xml.XMLAlias;
+import com.google.resting.component.impl.xml.XMLAliasKey;
 import com.google.resting.transform.Transformer;
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.XStreamException;
@@ -36,6 +37,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Base transformer for transforming XML response
@@ -46,7 +49,20 @@ import java.util.Set;
  */
 public class XMLTransformer<T> implements Transformer<T, ServiceResponse> {
 
-    private XStream xstream = new XStream(new DomDriver());
+    /**
+     * Upper bound of the cached XStream instances of each kind. Once it is reached, instances for new aliases are used
+     * without being cached, which only happens if the aliases are built with new converter instances for every
+     * request; the instances cached so far stay.
+     */
+    static final int MAX_CACHED_INSTANCES = 64;
+
+    private static final XStream DEFAULT_XSTREAM = new XStream(new DomDriver());
+
+    private static final ConcurrentMap<XMLAliasKey, XStream> DOM_XSTREAMS = new ConcurrentHashMap<XMLAliasKey, XStream>();
+
+    private static final ConcurrentMap<XMLAliasKey, XStream> STAX_XSTREAMS = new ConcurrentHashMap<XMLAliasKey, XStream>();
+
+    private XStream xstream = DEFAULT_XSTREAM;
 
     private boolean namespaceAware = false;
 
@@ -82,7 +98,7 @@ public class XMLTransformer<T> implements Transformer<T, ServiceResponse> {
         XMLAlias xmlAlias = null;
         if (alias instanceof XMLAlias) {
             xmlAlias = (XMLAlias) alias;
-            constructXStreamObject(xmlAlias);
+            xstream = getXStream(xmlAlias, namespaceAware && xmlAlias.getQNameMap() != null);
         }
         List<T> dests = new ArrayList<T>();
         dests.add(createEntity(responseString, targetType));
@@ -90,76 +106,75 @@ public class XMLTransformer<T> implements Transformer<T, ServiceResponse> {
         return dests;
     }//getEntityList
 
-    private void constructXStreamObject(XMLAlias xmlAlias) {
+    /**
+     * Returns the XStream instance configured for the alias. Instances are cached by a snapshot of the alias and shared
+     * by all transformers; they are not modified once configured, so they can unmarshal on several threads at once.
+     */
+    private static XStream getXStream(XMLAlias xmlAlias, boolean stax) {
+        ConcurrentMap<XMLAliasKey, XStream> xstreams = stax ? STAX_XSTREAMS : DOM_XSTREAMS;
+        XMLAliasKey key = xmlAlias.getKey();
+        XStream cached = xstreams.get(key);
+        if (cached != null)
+            return cached;
+        XStream created = constructXStreamObject(key, stax);
+        if (xstreams.size() >= MAX_CACHED_INSTANCES)
+            return created;
+        cached = xstreams.putIfAbsent(key, created);
+        return cached != null ? cached : created;
+    }//getXStream
+
+    private static XStream constructXStreamObject(XMLAliasKey xmlAlias, boolean stax) {
+        XStream xstream = null;
         // Enable StAX driver if transformer is namespace aware
-        Map<QName, Class> map = xmlAlias.getQNameMap();
-        if (namespaceAware && map != null) {
+        if (stax) {
+            Map<QName, Class> map = xmlAlias.getQNameMap();
             QNameMap qnameMap = new QNameMap();
             Set<QName> qnameSet = map.keySet();
             for (QName aQname : qnameSet) {
                 qnameMap.registerMapping(aQname, map.get(aQname));
             }
             xstream = new XStream(new StaxDriver(qnameMap));
+        } else {
+            xstream = new XStream(new DomDriver());
         }
 
         //Set alias
-        Map<String, Class> aliasTypeMap = xmlAlias.getAliasTypeMap();
-        Set<Entry<String, Class>> aliasSet = null;
-        if (aliasTypeMap != null) {
-            aliasSet = aliasTypeMap.entrySet();
-            for (Map.Entry<String, Class> aliasEntry : aliasSet) {
-                xstream.alias(aliasEntry.getKey(), aliasEntry.getValue());
-            }
+        Set<Entry<String, Class>> aliasSet = xmlAlias.getAliasTypeMap().entrySet();
+        for (Map.Entry<String, Class> aliasEntry : aliasSet) {
+            xstream.alias(aliasEntry.getKey(), aliasEntry.getValue());
         }
+
         //Set attribute
-        Map<String, Class> attributeMap = xmlAlias.getAttributeMap();
-        Set<Entry<String, Class>> attributeSet = null;
-        if (attributeMap != null) {
-            attributeSet = attributeMap.entrySet();
-            for (Map.Entry<String, Class> attributeEntry : attributeSet) {
-                xstream.useAttributeFor(attributeEntry.getValue(), attributeEntry.getKey());
-            }
+        Set<Entry<String, Class>> attributeSet = xmlAlias.getAttributeMap().entrySet();
+        for (Map.Entry<String, Class> attributeEntry : attributeSet) {
+            xstream.useAttributeFor(attributeEntry.getValue(), attributeEntry.getKey());
         }
 
         //Set implicit collection
-        Map<String, Class> implicitAliasMap = xmlAlias.getImplicitCollectionMap();
-        Set<Entry<String, Class>> implicitAliasSet = null;
-        if (implicitAliasMap != null) {
-            implicitAliasSet = implicitAliasMap.entrySet();
-            for (Map.Entry<String, Class> aliasEntry : implicitAliasSet) {
-                xstream.addImplicitCollection(aliasEntry.getValue(), aliasEntry.getKey());
-            }
+        Set<Entry<String, Class>> implicitAliasSet = xmlAlias.getImplicitCollectionMap().entrySet();
+        for (Map.Entry<String, Class> aliasEntry : implicitAliasSet) {
+            xstream.addImplicitCollection(aliasEntry.getValue(), aliasEntry.getKey());
         }
 
         //Set mode
         xstream.setMode(xmlAlias.getReferenceMode().getXStreamMode());
 
         //Set converters
-        Map<Converter, Priority> converters = xmlAlias.getConverters();
-        Set<Entry<Converter, Priority>> converterSet = null;
-        if (converters != null) {
-            converterSet = converters.entrySet();
-            for (Entry<Converter, Priority> converterEntry : converterSet) {
-                xstream.registerConverter(converterEntry.getKey(), converterEntry.getValue().getXStreamPriority());
-            }
+        Set<Entry<Converter, Priority>> converterSet = xmlAlias.getConverters().entrySet();
+        for (Entry<Converter, Priority> converterEntry : converterSet) {
+            xstream.registerConverter(converterEntry.getKey(), converterEntry.getValue().getXStreamPriority());
         }
 
-        Map<SingleValueConverter, Priority> singleValueConverters = xmlAlias.getSingleValueConverters();
-        Set<Entry<SingleValueConverter, Priority>> sconverterSet = null;
-        if (singleValueConverters != null) {
-            sconverterSet = singleValueConverters.entrySet();
-            for (Entry<SingleValueConverter, Priority> converterEntry : sconverterSet) {
-                xstream.registerConverter(converterEntry.getKey(), converterEntry.getValue().getXStreamPriority());
-            }
+        Set<Entry<SingleValueConverter, Priority>> sconverterSet = xmlAlias.getSingleValueConverters().entrySet();
+        for (Entry<SingleValueConverter, Priority> converterEntry : sconverterSet) {
+            xstream.registerConverter(converterEntry.getKey(), converterEntry.getValue().getXStreamPriority());
         }
 
         //Process annotations
-        List<Class> annotatedClassList = xmlAlias.getAnnotatedTypeList();
-        if (annotatedClassList != null) {
-            for (Class type : annotatedClassList)
-                xstream.processAnnotations(type);
-        }
+        for (Class type : xmlAlias.getAnnotatedTypeList())
+            xstream.processAnnotations(type);
 
+        return xstream;
     }//constructXStreamObject
 
     @Override
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting.util;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Detects the charset of a response body. The charset parameter of the Content-Type header wins, then a byte order
+ * mark, then the encoding of an XML declaration. The charset asked for by the caller is only used if none of them is
+ * present.
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+public final class CharsetDetector {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Charset UTF_16BE = Charset.forName("UTF-16BE");
+
+    private static final Charset UTF_16LE = Charset.forName("UTF-16LE");
+
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    //Only the start of the body is looked at for the XML declaration
+    private static final int XML_DECLARATION_LENGTH = 256;
+
+    private static final Pattern XML_ENCODING = Pattern.compile("^<\\?xml[^>]*?encoding\\s*=\\s*[\"']([A-Za-z0-9._:-]+)[\"']");
+
+    private CharsetDetector() {
+    }
+
+    /**
+     * Detects the charset of the body.
+     *
+     * @param contentCharset Charset parameter of the Content-Type header, may be null
+     * @param bytes          Body of the response
+     * @param fallback       Charset to use if none can be detected, may be null
+     * @return Detected charset, or the fallback
+     */
+    public static Charset detect(String contentCharset, byte[] bytes, Charset fallback) {
+        Charset charset = forName(contentCharset);
+        if (charset == null)
+            charset = fromBOM(bytes);
+        if (charset == null)
+            charset = fromXMLDeclaration(bytes);
+        return (charset != null) ? charset : fallback;
+    }//detect
+
+    /**
+     * Returns the charset of the Content-Type header if the JVM supports it.
+     *
+     * @param name Charset name, may be null
+     * @return Charset, or null if the name is null or unsupported
+     */
+    public static Charset forName(String name) {
+        if (name == null || name.length() == 0)
+            return null;
+        try {
+            return Charset.forName(name);
+        } catch (IllegalCharsetNameException e) {
+            return null;
+        } catch (UnsupportedCharsetException e) {
+            return null;
+        }
+    }//forName
+
+    /**
+     * Returns the length of the byte order mark at the start of the body for the given charset, so that the mark is not
+     * decoded as part of the content.
+     *
+     * @param bytes   Body of the response
+     * @param charset Charset the body is decoded with
+     * @return Length of the byte order mark, 0 if there is none
+     */
+    public static int getBOMLength(byte[] bytes, Charset charset) {
+        Charset bomCharset = fromBOM(bytes);
+        if (bomCharset == null || !bomCharset.equals(charset))
+            return 0;
+        return (bomCharset == UTF_8) ? 3 : 2;
+    }//getBOMLength
+
+    private static Charset fromBOM(byte[] bytes) {
+        if (bytes.length >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF)
+            return UTF_8;
+        if (bytes.length >= 2 && (bytes[0] & 0xFF) == 0xFE && (bytes[1] & 0xFF) == 0xFF)
+            return UTF_16BE;
+        if (bytes.length >= 2 && (bytes[0] & 0xFF) == 0xFF && (bytes[1] & 0xFF) == 0xFE)
+            return UTF_16LE;
+        return null;
+    }//fromBOM
+
+    private static Charset fromXMLDeclaration(byte[] bytes) {
+        if (bytes.length < 6 || bytes[0] != '<' || bytes[1] != '?')
+            return null;
+        //The declaration is ASCII in every charset the body could be declared in without a byte order mark
+        String declaration = new String(bytes, 0, Math.min(bytes.length, XML_DECLARATION_LENGTH), US_ASCII);
+        Matcher matcher = XML_ENCODING.matcher(declaration);
+        return matcher.find() ? forName(matcher.group(1)) : null;
+    }//fromXMLDeclaration
+
+}//CharsetDetector
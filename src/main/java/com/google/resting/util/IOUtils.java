@@ -15,16 +15,26 @@
  */
 package com.google.resting.util;
 
+import com.google.resting.async.listener.RequestProgressListener;
+import com.google.resting.async.request.RequestProgress;
+import com.google.resting.async.request.RequestStatus;
 import com.google.resting.component.EncodingTypes;
 import com.google.resting.component.content.IContentData;
 import com.google.resting.component.content.contentdecorator.ByteContentData;
+import com.google.resting.component.content.contentdecorator.FileContentData;
 import com.google.resting.component.content.contentdecorator.StringContentData;
+import com.google.resting.serviceaccessor.ResponseTooLargeException;
 
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
-import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 import static com.google.resting.component.EncodingTypes.BINARY;
 
@@ -44,6 +54,30 @@ public class IOUtils {
      */
     private static final int DEFAULT_BUFFER_SIZE = 1024 * 4;
 
+    /**
+     * Largest array size the VM can allocate.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final String SPILL_FILE_PREFIX = "resting-";
+
+    /**
+     * Largest array allocated up front from an announced content length; larger contents grow as they arrive.
+     */
+    private static final int MAX_INITIAL_ARRAY_SIZE = 1024 * 1024;
+
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Larger direct buffer of each thread for copies into files.
+     */
+    private static final ThreadLocal<ByteBuffer> FILE_BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(FILE_BUFFER_SIZE);
+        }
+    };
+
     /**
      * Get the contents of an <code>InputStream</code> as a String
      * using the specified character encoding.
@@ -86,7 +120,7 @@ public class IOUtils {
     public static void copy(InputStream input, Writer output, EncodingTypes charset)
             throws IOException {
         //	BufferedReader in = new BufferedReader(new InputStreamReader(input, "UTF-8"), DEFAULT_BUFFER_SIZE);
-        InputStreamReader in = new InputStreamReader(input, charset.getName());
+        InputStreamReader in = new InputStreamReader(input, charset.getCharset());
         copy(in, output);
     }//copy
 
@@ -148,38 +182,6 @@ public class IOUtils {
 
     }//closeQuietly
 
-    /**
-     * Copies a <code>ReadableByteChannel</code> into a <code>WritableByteChannel</code> byte channel. Uses a <code>ByteBuffer</code>
-     * to write to the channel. The buffer is drained before each write.
-     *
-     * @param src  the <code>ReadableByteChannel</code> to read from
-     * @param dest the <code>ReadableByteChannel</code> to write into
-     * @throws <code>IOException</code> if there is an I/O error
-     */
-    private static void fastChannelCopy(final ReadableByteChannel src, final WritableByteChannel dest) {
-        final ByteBuffer buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
-        try {
-            while (src.read(buffer) != -1) {
-                //prepare the buffer to be drained.
-                buffer.flip();
-                //write to the channel. may block.
-                dest.write(buffer);
-                //if partial transfer, shift remainder down.
-                //if buffer is empty, same as compact
-                buffer.compact();
-            }
-            //EOF will leave buffer in fill state
-            buffer.flip();
-
-            //make sure buffer is fully drained.
-            while (buffer.hasRemaining()) {
-                dest.write(buffer);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }//fastChannelCopy
-
     /**
      * Writes an <code>InputStream</code> into a String using a charset given in <code>EncodingTypes</code> in a fast and smooth manner.
      *
@@ -191,22 +193,13 @@ public class IOUtils {
      */
     public static String writeToString(InputStream inputStream, EncodingTypes charset) {
         String outputString = null;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        final ReadableByteChannel inputChannel = Channels.newChannel(inputStream);
-        final WritableByteChannel outputChannel = Channels.newChannel(baos);
-        //copy the channels
-        fastChannelCopy(inputChannel, outputChannel);
         try {
-            outputString = new String(baos.toByteArray(), charset.getName());
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
+            byte[] bytes = readFully(inputStream, -1, null);
+            outputString = new String(bytes, charset.getCharset());
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
-            closeQuietly(inputChannel);
-            closeQuietly(outputChannel);
             closeQuietly(inputStream);
-            closeQuietly(baos);
         }
         return outputString;
     }//writeToString
@@ -222,47 +215,270 @@ public class IOUtils {
      * @throws <code>Exception</code>                    for any issue
      */
     public static IContentData writeToContentData(InputStream inputStream, EncodingTypes charset) {
+        return writeToContentData(inputStream, charset, -1, null);
+    }//writeToContentData
+
+    /**
+     * Writes an <code>InputStream</code> into a <code>ContentData</code>, reporting the number of bytes read against the
+     * expected content length to the listener.
+     *
+     * @param inputStream             the <code>InputStream</code> to read from
+     * @param charset                 the charset among the ones defined in <code>EncodingTypes</code> for encoding
+     * @param contentLength           the Content-Length of the response, -1 if unknown
+     * @param requestProgressListener listener for the progress of reading. May be null.
+     * @return <code>ContentData</code> object
+     */
+    public static IContentData writeToContentData(InputStream inputStream, EncodingTypes charset, long contentLength, RequestProgressListener requestProgressListener) {
+        return writeToContentData(inputStream, charset, contentLength, requestProgressListener, -1);
+    }//writeToContentData
+
+    /**
+     * Writes an <code>InputStream</code> into a <code>ContentData</code>. Binary content larger than the spill threshold
+     * is written to a temporary file and returned as a {@link FileContentData}; if the content length is known to
+     * exceed the threshold, the content goes to the file straight away.
+     *
+     * @param inputStream             the <code>InputStream</code> to read from
+     * @param charset                 the charset among the ones defined in <code>EncodingTypes</code> for encoding
+     * @param contentLength           the Content-Length of the response, -1 if unknown
+     * @param requestProgressListener listener for the progress of reading. May be null.
+     * @param spillThreshold          size in bytes above which binary content is spilled to disk, -1 to keep all content
+     *                                in memory
+     * @return <code>ContentData</code> object
+     */
+    public static IContentData writeToContentData(InputStream inputStream, EncodingTypes charset, long contentLength, RequestProgressListener requestProgressListener, long spillThreshold) {
+        return writeToContentData(inputStream, charset, null, contentLength, requestProgressListener, spillThreshold);
+    }//writeToContentData
+
+    /**
+     * Writes an <code>InputStream</code> into a <code>ContentData</code>. Text content is decoded with the charset detected
+     * by {@link CharsetDetector}: the charset of the Content-Type header, else a byte order mark, else an XML
+     * declaration. The charset given in <code>EncodingTypes</code> is only the fallback; {@link EncodingTypes#BINARY}
+     * always yields binary content.
+     *
+     * @param inputStream             the <code>InputStream</code> to read from
+     * @param charset                 the fallback charset among the ones defined in <code>EncodingTypes</code>
+     * @param contentCharset          the charset parameter of the Content-Type header, may be null
+     * @param contentLength           the Content-Length of the response, -1 if unknown
+     * @param requestProgressListener listener for the progress of reading. May be null.
+     * @param spillThreshold          size in bytes above which binary content is spilled to disk, -1 to keep all content
+     *                                in memory
+     * @return <code>ContentData</code> object
+     */
+    public static IContentData writeToContentData(InputStream inputStream, EncodingTypes charset, String contentCharset, long contentLength, RequestProgressListener requestProgressListener, long spillThreshold) {
+        return writeToContentData(inputStream, charset, contentCharset, contentLength, requestProgressListener, spillThreshold, -1);
+    }//writeToContentData
+
+    /**
+     * Writes an <code>InputStream</code> into a <code>ContentData</code>, reading no more than the maximum size. A
+     * Content-Length above the maximum fails before anything is read; a body without a length fails as soon as one
+     * byte more than the maximum has been read. The stream is then left open, as closing a stream of a pooled
+     * connection reads it to the end; the caller should abort the connection instead.
+     *
+     * @param inputStream             the <code>InputStream</code> to read from
+     * @param charset                 the fallback charset among the ones defined in <code>EncodingTypes</code>
+     * @param contentCharset          the charset parameter of the Content-Type header, may be null
+     * @param contentLength           the Content-Length of the response, -1 if unknown
+     * @param requestProgressListener listener for the progress of reading. May be null.
+     * @param spillThreshold          size in bytes above which binary content is spilled to disk, -1 to keep all content
+     *                                in memory
+     * @param maxSize                 maximum size of the content in bytes, -1 for no limit
+     * @return <code>ContentData</code> object
+     * @throws ResponseTooLargeException if the content is larger than the maximum size
+     */
+    public static IContentData writeToContentData(InputStream inputStream, EncodingTypes charset, String contentCharset, long contentLength, RequestProgressListener requestProgressListener, long spillThreshold, long maxSize) {
         IContentData output = null;
         byte[] outputBytes = null;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        final ReadableByteChannel inputChannel = Channels.newChannel(inputStream);
-        final WritableByteChannel outputChannel = Channels.newChannel(baos);
-        //copy the channels
-        fastChannelCopy(inputChannel, outputChannel);
+        boolean tooLarge = false;
+        long max = (maxSize >= 0) ? maxSize : Long.MAX_VALUE;
+        if (contentLength > max)
+            throw new ResponseTooLargeException(maxSize, contentLength);
+        long limit = Math.min(max, (charset == BINARY && spillThreshold >= 0) ? spillThreshold : MAX_ARRAY_SIZE);
+        RequestProgress requestProgress = null;
+        if (requestProgressListener != null) {
+            requestProgress = new RequestProgress(RequestStatus.LOADING_FROM_NETWORK);
+            requestProgress.setContentLength(contentLength);
+        }
         try {
-            outputBytes = baos.toByteArray();
-            if (charset != null) {
-                switch (charset) {
-                    case BINARY:
-                        output = new ByteContentData(outputBytes);
-                        break;
-                    default:
-                        output = new StringContentData(outputBytes, charset);
-                        break;
-                }
+            if (contentLength > limit)
+                outputBytes = new byte[0];
+            else
+                outputBytes = readFully(inputStream, contentLength, limit, requestProgress, requestProgressListener);
+
+            if (outputBytes.length > max) {
+                throw new ResponseTooLargeException(maxSize, contentLength);
+            } else if (outputBytes.length > limit || contentLength > limit) {
+                output = spillToFile(outputBytes, inputStream, max, requestProgress, requestProgressListener);
+            } else if (charset == BINARY) {
+                output = new ByteContentData(outputBytes);
             } else {
-                output = new StringContentData(outputBytes, charset);
-            }//if null
+                Charset decoder = CharsetDetector.detect(contentCharset, outputBytes, (charset != null) ? charset.getCharset() : null);
+                output = new StringContentData(outputBytes, decoder, CharsetDetector.getBOMLength(outputBytes, decoder));
+            }//if binary
+            notifyComplete(requestProgress, requestProgressListener);
 
+        } catch (ResponseTooLargeException e) {
+            tooLarge = true;
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
         } finally {
-            closeQuietly(inputChannel);
-            closeQuietly(outputChannel);
-            closeQuietly(inputStream);
-            closeQuietly(baos);
+            if (!tooLarge)
+                closeQuietly(inputStream);
         }
         return output;
     }//writeToContentData
 
-    public static String writeToString(byte[] bytes, EncodingTypes charset) {
-        String output = null;
+    /**
+     * Reads an <code>InputStream</code> to the end into a byte array of the exact size of the content. See
+     * {@link #readFully(InputStream, long, long, RequestProgress, RequestProgressListener)}.
+     */
+    private static byte[] readFully(InputStream inputStream, long contentLength, RequestProgressListener requestProgressListener) {
+        RequestProgress requestProgress = null;
+        if (requestProgressListener != null) {
+            requestProgress = new RequestProgress(RequestStatus.LOADING_FROM_NETWORK);
+            requestProgress.setContentLength(contentLength);
+        }
+        byte[] bytes = readFully(inputStream, contentLength, MAX_ARRAY_SIZE, requestProgress, requestProgressListener);
+        notifyComplete(requestProgress, requestProgressListener);
+        return bytes;
+    }//readFully
+
+    /**
+     * Reads an <code>InputStream</code> into a byte array of the exact size of the content, stopping early once more
+     * than limit bytes have been read. With a known content length of at most {@link #MAX_INITIAL_ARRAY_SIZE} the bytes
+     * are read straight into an array of that size, so no intermediate buffer or final copy is needed. A larger announced
+     * length is read into a first array of {@link #MAX_INITIAL_ARRAY_SIZE}, which is grown straight to the content
+     * length once it is full, so a bogus Content-Length cannot exhaust the heap before any byte has arrived. Without a
+     * content length the array grows by doubling and is trimmed once at the end. If reading fails, the bytes read so
+     * far are returned.
+     *
+     * @param inputStream             the <code>InputStream</code> to read from
+     * @param contentLength           expected number of bytes, -1 if unknown
+     * @param limit                   number of bytes after which reading stops
+     * @param requestProgress         progress updated after every chunk. May be null.
+     * @param requestProgressListener listener for the progress. May be null.
+     * @return Content of the stream; longer than limit if reading stopped early
+     */
+    private static byte[] readFully(InputStream inputStream, long contentLength, long limit, RequestProgress requestProgress, RequestProgressListener requestProgressListener) {
+        boolean sized = contentLength >= 0 && contentLength <= MAX_ARRAY_SIZE;
+        byte[] bytes = new byte[sized ? (int) Math.min(contentLength, MAX_INITIAL_ARRAY_SIZE) : (int) Math.min(DEFAULT_BUFFER_SIZE, limit + 1)];
+        int count = 0;
         try {
-            if (charset != BINARY)
-                output = new String(bytes, charset.getName());
-        } catch (UnsupportedEncodingException e) {
+            while (count <= limit) {
+                if (count == bytes.length) {
+                    if (sized && count < contentLength) {
+                        //the first chunk has arrived, so the announced length is trusted from here on
+                        bytes = Arrays.copyOf(bytes, (int) Math.min(contentLength, limit + 1));
+                    } else if (sized) {
+                        //the announced length has been read, make sure nothing follows
+                        int next = inputStream.read();
+                        if (next == -1)
+                            break;
+                        sized = false;
+                        bytes = grow(bytes);
+                        bytes[count++] = (byte) next;
+                        continue;
+                    } else {
+                        bytes = grow(bytes);
+                    }
+                }
+                int n = inputStream.read(bytes, count, (int) Math.min(bytes.length - count, limit + 1 - count));
+                if (n == -1)
+                    break;
+                count += n;
+                if (requestProgress != null) {
+                    requestProgress.setBytesTransferred(count);
+                    requestProgressListener.onRequestProgressUpdate(requestProgress);
+                }
+            }
+        } catch (IOException e) {
             e.printStackTrace();
         }
+        return count == bytes.length ? bytes : Arrays.copyOf(bytes, count);
+    }//readFully
+
+    /**
+     * Writes the bytes read so far and the rest of the stream to a temporary file.
+     *
+     * @param maxSize maximum size of the file
+     * @return Content data backed by the file
+     * @throws IOException if the file cannot be written. The file is deleted.
+     * @throws ResponseTooLargeException if the content is larger than the maximum size. The file is deleted.
+     */
+    private static FileContentData spillToFile(byte[] head, InputStream inputStream, long maxSize, RequestProgress requestProgress, RequestProgressListener requestProgressListener) throws IOException {
+        Path file = Files.createTempFile(SPILL_FILE_PREFIX, null);
+        long count = head.length;
+        FileChannel outputChannel = null;
+        boolean written = false;
+        try {
+            outputChannel = FileChannel.open(file, StandardOpenOption.WRITE);
+            ByteBuffer headBuffer = ByteBuffer.wrap(head);
+            while (headBuffer.hasRemaining())
+                outputChannel.write(headBuffer);
+
+            count += copyToFile(inputStream, outputChannel, count, maxSize, requestProgress, requestProgressListener);
+            written = true;
+        } finally {
+            closeQuietly(outputChannel);
+            if (!written)
+                Files.deleteIfExists(file);
+        }
+        return new FileContentData(file, count);
+    }//spillToFile
+
+    /**
+     * Copies an <code>InputStream</code> into a <code>FileChannel</code>, starting at the given position of the file.
+     * The bytes pass through a direct buffer of the calling thread, which is reused across copies.
+     *
+     * @param inputStream the <code>InputStream</code> to read from
+     * @param fileChannel the <code>FileChannel</code> to write into
+     * @param position    position in the file of the first byte
+     * @return number of bytes copied
+     * @throws IOException if reading or writing fails
+     */
+    public static long copyToFile(InputStream inputStream, FileChannel fileChannel, long position) throws IOException {
+        return copyToFile(inputStream, fileChannel, position, Long.MAX_VALUE, null, null);
+    }//copyToFile
+
+    private static long copyToFile(InputStream inputStream, FileChannel fileChannel, long position, long maxPosition, RequestProgress requestProgress, RequestProgressListener requestProgressListener) throws IOException {
+        ReadableByteChannel inputChannel = Channels.newChannel(inputStream);
+        ByteBuffer buffer = FILE_BUFFER.get();
+        buffer.clear();
+        long offset = position;
+        while (inputChannel.read(buffer) != -1) {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                offset += fileChannel.write(buffer, offset);
+            buffer.clear();
+            if (offset > maxPosition)
+                throw new ResponseTooLargeException(maxPosition, -1);
+            if (requestProgress != null) {
+                requestProgress.setBytesTransferred(offset);
+                requestProgressListener.onRequestProgressUpdate(requestProgress);
+            }
+        }
+        return offset - position;
+    }//copyToFile
+
+    private static void notifyComplete(RequestProgress requestProgress, RequestProgressListener requestProgressListener) {
+        if (requestProgress != null) {
+            requestProgress.setStatus(RequestStatus.COMPLETE);
+            requestProgress.setProgress(1f);
+            requestProgressListener.onRequestProgressUpdate(requestProgress);
+        }
+    }//notifyComplete
+
+    private static byte[] grow(byte[] bytes) {
+        if (bytes.length >= MAX_ARRAY_SIZE)
+            throw new OutOfMemoryError("Content is too large for a byte array");
+        int capacity = (int) Math.min(MAX_ARRAY_SIZE, Math.max(DEFAULT_BUFFER_SIZE, bytes.length * 2L));
+        return Arrays.copyOf(bytes, capacity);
+    }//grow
+
+    public static String writeToString(byte[] bytes, EncodingTypes charset) {
+        String output = null;
+        if (charset != BINARY)
+            output = new String(bytes, charset.getCharset());
 
         return output;
     }
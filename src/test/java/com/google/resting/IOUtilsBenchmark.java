@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting;
+
+import com.google.resting.component.EncodingTypes;
+import com.google.resting.util.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Manual benchmark of reading response bodies with {@link IOUtils#writeToContentData(InputStream, EncodingTypes, long,
+ * com.google.resting.async.listener.RequestProgressListener)}. Compares the previous copy through a direct buffer and a
+ * ByteArrayOutputStream with the size-hinted read, for 1 KB, 64 KB and 10 MB bodies. Reports throughput and bytes
+ * allocated per body.
+ * <p>
+ * Usage: IOUtilsBenchmark [seconds per case]
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+@SuppressWarnings("restriction")
+public class IOUtilsBenchmark {
+
+    private static final int[] SIZES = {1024, 64 * 1024, 10 * 1024 * 1024};
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws IOException {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 3;
+        for (int size : SIZES) {
+            byte[] body = new byte[size];
+            for (int i = 0; i < size; i++)
+                body[i] = (byte) ('a' + i % 26);
+            run("BAOS copy  ", body, seconds, false);
+            run("Sized read ", body, seconds, true);
+        }
+    }
+
+    private static void run(String label, byte[] body, long seconds, boolean sized) throws IOException {
+        //warm up
+        runFor(body, seconds * 1000 / 3, sized);
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        long iterations = runFor(body, seconds * 1000, sized);
+        long elapsed = System.nanoTime() - startTime;
+        long allocated = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.println(label + (body.length / 1024) + " KB : "
+                + String.format("%.0f ops/s, %.1f MB/s, %d bytes allocated/op",
+                iterations * 1e9 / elapsed, iterations * (double) body.length * 1e9 / elapsed / (1 << 20), allocated / iterations));
+    }
+
+    private static long runFor(byte[] body, long millis, boolean sized) throws IOException {
+        long deadline = System.currentTimeMillis() + millis;
+        long iterations = 0;
+        while (System.currentTimeMillis() < deadline) {
+            InputStream inputStream = new ByteArrayInputStream(body);
+            if (sized)
+                IOUtils.writeToContentData(inputStream, EncodingTypes.BINARY, body.length, null);
+            else
+                baosCopy(inputStream);
+            iterations++;
+        }
+        return iterations;
+    }
+
+    /**
+     * The previous implementation of writeToContentData: a new direct buffer per copy, a growing
+     * ByteArrayOutputStream and a final toByteArray copy.
+     */
+    private static byte[] baosCopy(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ReadableByteChannel src = Channels.newChannel(inputStream);
+        WritableByteChannel dest = Channels.newChannel(baos);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+        while (src.read(buffer) != -1) {
+            buffer.flip();
+            dest.write(buffer);
+            buffer.compact();
+        }
+        buffer.flip();
+        while (buffer.hasRemaining())
+            dest.write(buffer);
+        return baos.toByteArray();
+    }
+
+}
@@ -1,15 +1,31 @@
 package com.google.resting;
 
 import com.google.resting.component.EncodingTypes;
+import com.google.resting.component.content.IContentData;
+import com.google.resting.component.content.contentdecorator.FileContentData;
+import com.google.resting.component.impl.ServiceResponse;
+import com.google.resting.util.CharsetDetector;
 import com.google.resting.util.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class IOUtilsTest {
 
@@ -53,4 +69,107 @@ public class IOUtilsTest {
 
     }
 
+    @Test
+    public void testBogusContentLength() {
+        IContentData contentData = IOUtils.writeToContentData(new ByteArrayInputStream("short body".getBytes()), EncodingTypes.BINARY, 2000000000L, null);
+        assertEquals(10, contentData.getContentLength());
+        assertArrayEquals("short body".getBytes(), (byte[]) contentData.getContent());
+    }
+
+    @Test
+    public void testContentLengthAboveInitialArraySize() {
+        byte[] body = new byte[3 * 1024 * 1024 + 7];
+        for (int i = 0; i < body.length; i++)
+            body[i] = (byte) i;
+        IContentData contentData = IOUtils.writeToContentData(new ByteArrayInputStream(body), EncodingTypes.BINARY, body.length, null);
+        assertArrayEquals(body, (byte[]) contentData.getContent());
+    }
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Charset UTF_16BE = Charset.forName("UTF-16BE");
+
+    private static final Charset UTF_16LE = Charset.forName("UTF-16LE");
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private static byte[] withBOM(byte[] bom, String text, Charset charset) {
+        byte[] content = text.getBytes(charset);
+        byte[] bytes = new byte[bom.length + content.length];
+        System.arraycopy(bom, 0, bytes, 0, bom.length);
+        System.arraycopy(content, 0, bytes, bom.length, content.length);
+        return bytes;
+    }
+
+    private static String decode(byte[] bytes, String contentCharset, EncodingTypes charset) {
+        return IOUtils.writeToContentData(new ByteArrayInputStream(bytes), charset, contentCharset, bytes.length, null, -1).getContentInString();
+    }
+
+    @Test
+    public void testUTF8BOM() {
+        byte[] bytes = withBOM(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, "caf\u00e9", UTF_8);
+        assertEquals(UTF_8, CharsetDetector.detect(null, bytes, ISO_8859_1));
+        assertEquals(3, CharsetDetector.getBOMLength(bytes, UTF_8));
+        assertEquals("caf\u00e9", decode(bytes, null, EncodingTypes.ISO88591));
+    }
+
+    @Test
+    public void testUTF8BOMWithContentTypeCharset() {
+        byte[] bytes = withBOM(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, "caf\u00e9", UTF_8);
+        assertEquals(UTF_8, CharsetDetector.detect("utf-8", bytes, ISO_8859_1));
+        assertEquals("caf\u00e9", decode(bytes, "utf-8", EncodingTypes.ISO88591));
+        //The Content-Type charset wins over the byte order mark, which is then not skipped
+        assertEquals(ISO_8859_1, CharsetDetector.detect("ISO-8859-1", bytes, UTF_8));
+        assertEquals(0, CharsetDetector.getBOMLength(bytes, ISO_8859_1));
+    }
+
+    @Test
+    public void testUTF16BOM() {
+        byte[] littleEndian = withBOM(new byte[]{(byte) 0xFF, (byte) 0xFE}, "caf\u00e9", UTF_16LE);
+        assertEquals(UTF_16LE, CharsetDetector.detect(null, littleEndian, UTF_8));
+        assertEquals(2, CharsetDetector.getBOMLength(littleEndian, UTF_16LE));
+        assertEquals("caf\u00e9", decode(littleEndian, null, EncodingTypes.UTF8));
+
+        byte[] bigEndian = withBOM(new byte[]{(byte) 0xFE, (byte) 0xFF}, "caf\u00e9", UTF_16BE);
+        assertEquals(UTF_16BE, CharsetDetector.detect(null, bigEndian, UTF_8));
+        assertEquals(2, CharsetDetector.getBOMLength(bigEndian, UTF_16BE));
+        assertEquals("caf\u00e9", decode(bigEndian, null, EncodingTypes.UTF8));
+    }
+
+    @Test
+    public void testXMLDeclaration() {
+        byte[] bytes = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a>caf\u00e9</a>".getBytes(ISO_8859_1);
+        assertEquals(ISO_8859_1, CharsetDetector.detect(null, bytes, UTF_8));
+        assertEquals(0, CharsetDetector.getBOMLength(bytes, ISO_8859_1));
+        assertEquals("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a>caf\u00e9</a>", decode(bytes, null, EncodingTypes.UTF8));
+        assertEquals(UTF_8, CharsetDetector.detect(null, "<?xml version='1.0' encoding='utf-8'?><a/>".getBytes(UTF_8), ISO_8859_1));
+    }
+
+    @Test
+    public void testUnsupportedCharsetFallsBack() {
+        byte[] bytes = "caf\u00e9".getBytes(UTF_8);
+        assertNull(CharsetDetector.forName("no-such-charset"));
+        assertNull(CharsetDetector.forName("bad name"));
+        assertEquals(UTF_8, CharsetDetector.detect("no-such-charset", bytes, UTF_8));
+        assertEquals("caf\u00e9", decode(bytes, "no-such-charset", EncodingTypes.UTF8));
+        byte[] declared = "<?xml version=\"1.0\" encoding=\"no-such-charset\"?><a/>".getBytes(UTF_8);
+        assertEquals(UTF_8, CharsetDetector.detect(null, declared, UTF_8));
+    }
+
+    @Test
+    public void testSpilledResponseDeletedOnClose() throws IOException {
+        byte[] body = new byte[64 * 1024];
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new ByteArrayEntity(body));
+        ServiceResponse serviceResponse = new ServiceResponse(response, EncodingTypes.BINARY, null, 1024);
+        assertTrue(serviceResponse.getContentData() instanceof FileContentData);
+        Path file = ((FileContentData) serviceResponse.getContentData()).getFile();
+        assertTrue(Files.exists(file));
+        assertEquals(body.length, Files.size(file));
+        serviceResponse.close();
+        assertFalse(Files.exists(file));
+        //closing twice is harmless
+        serviceResponse.close();
+    }
+
 }
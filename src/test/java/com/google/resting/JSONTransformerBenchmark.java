@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting;
+
+import com.google.resting.component.impl.json.JSONAlias;
+import com.google.resting.transform.impl.JSONTransformer;
+import com.google.resting.transform.impl.StreamingJSONTransformer;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Manual benchmark of binding an aliased array of 50,000 objects. Compares {@link JSONTransformer}, which builds a
+ * JSONObject tree and re-parses every element from its string, with the single pass of
+ * {@link StreamingJSONTransformer}. Reports time and bytes allocated per transformation.
+ * <p>
+ * Usage: JSONTransformerBenchmark [elements] [iterations]
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+@SuppressWarnings("restriction")
+public class JSONTransformerBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        String payload = createPayload(elements);
+        System.out.println("Payload: " + elements + " elements, " + payload.length() / 1024 + " KB");
+
+        run("JSONTransformer         ", new JSONTransformer<Item>(), payload, elements, iterations);
+        run("StreamingJSONTransformer", new StreamingJSONTransformer<Item>(), payload, elements, iterations);
+    }
+
+    private static void run(String label, JSONTransformer<Item> transformer, String payload, int elements, int iterations) {
+        JSONAlias alias = new JSONAlias("items");
+        //warm up
+        for (int i = 0; i < iterations / 2 + 1; i++)
+            check(transformer.getEntityList(payload, Item.class, alias), elements);
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            check(transformer.getEntityList(payload, Item.class, alias), elements);
+        long elapsed = System.nanoTime() - startTime;
+        long allocated = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.println(label + " : " + String.format("%.1f ms/op, %.1f MB allocated/op",
+                elapsed / 1e6 / iterations, allocated / (double) iterations / (1 << 20)));
+    }
+
+    private static void check(List<Item> items, int elements) {
+        if (items == null || items.size() != elements || items.get(elements - 1).id != elements - 1)
+            throw new IllegalStateException("Unexpected result");
+    }
+
+    private static String createPayload(int elements) {
+        StringBuilder builder = new StringBuilder(elements * 96);
+        builder.append("{\"total\":").append(elements).append(",\"meta\":{\"page\":1,\"tags\":[\"a\",\"b\"]},\"items\":[");
+        for (int i = 0; i < elements; i++) {
+            if (i > 0)
+                builder.append(',');
+            builder.append("{\"id\":").append(i)
+                    .append(",\"name\":\"item ").append(i)
+                    .append("\",\"price\":").append(i * 0.25)
+                    .append(",\"active\":").append(i % 2 == 0)
+                    .append(",\"tags\":[\"x\",\"y\"]}");
+        }
+        return builder.append("]}").toString();
+    }
+
+    static class Item {
+        int id;
+        String name;
+        double price;
+        boolean active;
+        List<String> tags;
+    }
+
+}
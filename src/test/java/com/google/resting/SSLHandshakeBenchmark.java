@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2013 Google Code.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.resting;
+
+import com.google.resting.rest.CustomSSLSocketFactory;
+import org.apache.http.params.BasicHttpParams;
+
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Manual benchmark of TLS handshakes for repeated connections to the same host. Compares a new SSL context per
+ * connection (the previous behaviour of secureInvoke) with the shared SSL context of {@link CustomSSLSocketFactory}.
+ * <p>
+ * Usage: SSLHandshakeBenchmark [host] [port] [iterations]
+ *
+ * @author sujata.de
+ * @since resting 0.8
+ */
+@SuppressWarnings("deprecation")
+public class SSLHandshakeBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "www.google.com";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 443;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        run("New SSLContext per call", host, port, iterations, false);
+        run("Shared SSLContext      ", host, port, iterations, true);
+    }
+
+    private static void run(String label, String host, int port, int iterations, boolean shared) throws IOException {
+        long[] latencies = new long[iterations];
+        Set<String> sessionIds = new HashSet<String>();
+        int fullHandshakes = 0;
+        for (int i = 0; i < iterations; i++) {
+            long startTime = System.nanoTime();
+            SSLSocket socket = null;
+            if (shared)
+                socket = (SSLSocket) new CustomSSLSocketFactory().connectSocket(null, host, port, null, 0, new BasicHttpParams());
+            else
+                socket = (SSLSocket) CustomSSLSocketFactory.createEasySSLContext().getSocketFactory().createSocket(host, port);
+            try {
+                //TLS 1.2 keeps the session id on resumption, which makes full handshakes countable
+                socket.setEnabledProtocols(new String[]{"TLSv1.2"});
+                socket.startHandshake();
+                latencies[i] = System.nanoTime() - startTime;
+                SSLSession session = socket.getSession();
+                if (sessionIds.add(Arrays.toString(session.getId())))
+                    fullHandshakes++;
+            } finally {
+                socket.close();
+            }
+        }
+        Arrays.sort(latencies);
+        System.out.println(label + " : full handshakes " + fullHandshakes + "/" + iterations
+                + ", p50 " + millis(latencies[iterations / 2]) + " ms"
+                + ", p99 " + millis(latencies[Math.min(iterations - 1, (int) Math.ceil(iterations * 0.99) - 1)]) + " ms");
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1000000.0;
+    }
+
+}
@@ -0,0 +1,224 @@
+package com.google.resting;
+
+import com.google.resting.component.impl.DownloadResult;
+import com.google.resting.component.impl.StreamingServiceResponse;
+import com.google.resting.serviceaccessor.ResponseTooLargeException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Streaming and download paths against a local server
+ */
+public class StreamingTest {
+
+    private static final int BODY_SIZE = 64 * 1024;
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = new TestServer()
+                .handle("/sized", new HttpHandler() {
+                    public void handle(HttpExchange exchange) throws IOException {
+                        TestServer.send(exchange, 200, "application/octet-stream", body());
+                    }
+                })
+                .handle("/range", new HttpHandler() {
+                    public void handle(HttpExchange exchange) throws IOException {
+                        String range = exchange.getRequestHeaders().getFirst("Range");
+                        if (range == null) {
+                            TestServer.send(exchange, 200, "application/octet-stream", body());
+                            return;
+                        }
+                        int from = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+                        exchange.getResponseHeaders().set("Content-Range", "bytes " + from + "-" + (BODY_SIZE - 1) + "/" + BODY_SIZE);
+                        TestServer.send(exchange, 206, "application/octet-stream", Arrays.copyOfRange(body(), from, BODY_SIZE));
+                    }
+                })
+                .handle("/missing", TestServer.respond(404, "text/plain", "not found"))
+                .handle("/chunked", new HttpHandler() {
+                    public void handle(HttpExchange exchange) throws IOException {
+                        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                        exchange.sendResponseHeaders(200, 0);
+                        OutputStream outputStream = exchange.getResponseBody();
+                        try {
+                            outputStream.write(body());
+                            outputStream.close();
+                        } catch (IOException e) {
+                            //the client aborted the connection
+                        }
+                    }
+                });
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    private static byte[] body() {
+        byte[] body = new byte[BODY_SIZE];
+        for (int i = 0; i < body.length; i++)
+            body[i] = (byte) ('a' + i % 26);
+        return body;
+    }
+
+    private static RestingBuilder builder(String path) {
+        return new RestingBuilder(server.getUrl(path)).setPort(server.getPort());
+    }
+
+    private static long drain(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[8192];
+        long count = 0;
+        int n;
+        while ((n = inputStream.read(buffer)) != -1)
+            count += n;
+        return count;
+    }
+
+    @Test
+    public void testDownload() throws IOException {
+        Path file = Files.createTempFile("resting-test", null);
+        try {
+            DownloadResult result = builder("/sized").downloadTo(file);
+            assertEquals(200, result.getStatusCode());
+            assertFalse(result.isResumed());
+            assertEquals(BODY_SIZE, result.getBytesTransferred());
+            assertEquals(BODY_SIZE, result.getFileSize());
+            assertArrayEquals(body(), Files.readAllBytes(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testDownloadResumed() throws IOException {
+        Path file = Files.createTempFile("resting-test", null);
+        try {
+            Files.write(file, Arrays.copyOf(body(), 1000));
+            DownloadResult result = builder("/range").downloadTo(file);
+            assertEquals(206, result.getStatusCode());
+            assertTrue(result.isResumed());
+            assertEquals(BODY_SIZE - 1000, result.getBytesTransferred());
+            assertEquals(BODY_SIZE, result.getFileSize());
+            assertArrayEquals(body(), Files.readAllBytes(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * A server which ignores the Range header sends the whole body, which replaces the partial file
+     */
+    @Test
+    public void testDownloadRangeIgnored() throws IOException {
+        Path file = Files.createTempFile("resting-test", null);
+        try {
+            Files.write(file, new byte[2 * BODY_SIZE]);
+            DownloadResult result = builder("/sized").downloadTo(file);
+            assertEquals(200, result.getStatusCode());
+            assertFalse(result.isResumed());
+            assertArrayEquals(body(), Files.readAllBytes(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testDownloadErrorLeavesFile() throws IOException {
+        Path file = Files.createTempFile("resting-test", null);
+        try {
+            Files.write(file, new byte[]{1, 2, 3});
+            DownloadResult result = builder("/missing").downloadTo(file);
+            assertEquals(404, result.getStatusCode());
+            assertEquals(0, result.getBytesTransferred());
+            assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testStreamWithinLimit() throws IOException {
+        StreamingServiceResponse serviceResponse = builder("/chunked").setMaxResponseSize(BODY_SIZE).invokeStreaming();
+        try {
+            assertEquals(BODY_SIZE, drain(serviceResponse.getInputStream()));
+        } finally {
+            serviceResponse.close();
+        }
+    }
+
+    @Test
+    public void testStreamContentLengthRejected() {
+        try {
+            builder("/sized").setMaxResponseSize(BODY_SIZE - 1).invokeStreaming();
+            fail("Expected the Content-Length to be rejected");
+        } catch (ResponseTooLargeException e) {
+            assertEquals(BODY_SIZE, e.getContentLength());
+        }
+    }
+
+    @Test
+    public void testStreamAbortedWhileReading() throws IOException {
+        StreamingServiceResponse serviceResponse = builder("/chunked").setMaxResponseSize(1024).invokeStreaming();
+        try {
+            drain(serviceResponse.getInputStream());
+            fail("Expected the body to be cut off");
+        } catch (ResponseTooLargeException e) {
+            assertEquals(1024, e.getMaxResponseSize());
+        } finally {
+            serviceResponse.close();
+        }
+        //The aborted connection is not reused
+        StreamingServiceResponse next = builder("/chunked").invokeStreaming();
+        try {
+            assertEquals(BODY_SIZE, drain(next.getInputStream()));
+        } finally {
+            next.close();
+        }
+    }
+
+    @Test
+    public void testDownloadAbortedWhileReading() throws IOException {
+        Path file = Files.createTempFile("resting-test", null);
+        try {
+            builder("/chunked").setMaxResponseSize(1024).downloadTo(file);
+            fail("Expected the download to be cut off");
+        } catch (ResponseTooLargeException e) {
+            assertEquals(1024, e.getMaxResponseSize());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testDownloadContentLengthRejected() throws IOException {
+        Path file = Files.createTempFile("resting-test", null);
+        try {
+            builder("/sized").setMaxResponseSize(1024).downloadTo(file);
+            fail("Expected the Content-Length to be rejected");
+        } catch (ResponseTooLargeException e) {
+            assertEquals(BODY_SIZE, e.getContentLength());
+            assertEquals(0, Files.size(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}
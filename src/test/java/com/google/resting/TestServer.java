@@ -0,0 +1,64 @@
+package com.google.resting;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP server on a free local port, for tests which need a real connection
+ */
+public final class TestServer implements Closeable {
+
+    private final HttpServer server;
+
+    public TestServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    public TestServer handle(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+        return this;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getUrl(String path) {
+        return "http://localhost" + path;
+    }
+
+    /**
+     * Handler answering every request with the given status and body
+     */
+    public static HttpHandler respond(final int status, final String contentType, final String body) {
+        return new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                send(exchange, status, contentType, body.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+    }
+
+    public static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        OutputStream outputStream = exchange.getResponseBody();
+        outputStream.write(body);
+        outputStream.close();
+    }
+
+    public void close() {
+        server.stop(0);
+    }
+
+}
@@ -1,14 +1,34 @@
 package com.google.resting;
 
+import com.google.gson.Gson;
 import com.google.resting.atom.AtomFeed;
+import com.google.resting.component.EncodingTypes;
+import com.google.resting.component.impl.ServiceResponse;
+import com.google.resting.component.impl.json.JSONAlias;
+import com.google.resting.component.impl.xml.ReferenceMode;
 import com.google.resting.component.impl.xml.XMLAlias;
+import com.google.resting.component.impl.xml.XMLAliasKey;
+import com.google.resting.transform.impl.JSONTransformer;
+import com.google.resting.transform.impl.StreamingJSONTransformer;
 import com.google.resting.transform.impl.atom.AtomTransformer;
 import com.google.resting.util.ReflectionUtil;
 import com.google.resting.vo.*;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
 import org.junit.Test;
 
+import javax.xml.namespace.QName;
 import java.io.*;
 import java.net.URL;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 
 public class TransformerTest {
 
@@ -171,4 +191,167 @@ public class TransformerTest {
             e.printStackTrace();
         }
     }
+
+    private ServiceResponse getJSONResponse(String json) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
+        return new ServiceResponse(response, EncodingTypes.UTF8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertParallelBindingEquals(String json, JSONAlias alias) {
+        JSONTransformer<Object> transformer = new JSONTransformer<Object>();
+        Map<String, List> sequential = transformer.getEntityLists(getJSONResponse(json), alias.setParallel(false));
+        Map<String, List> parallel = transformer.getEntityLists(getJSONResponse(json), alias.setParallel(true));
+        Gson gson = new Gson();
+        assertEquals(sequential.keySet(), parallel.keySet());
+        for (String key : sequential.keySet())
+            assertEquals(gson.toJson(sequential.get(key)), gson.toJson(parallel.get(key)));
+    }
+
+    /**
+     * Parallel binding of several aliases gives the same entities as sequential binding
+     */
+    @Test
+    public void testParallelBindingMatchesSequential() {
+        JSONAlias alias = new JSONAlias().add("fields", Field.class).add("field", Field.class);
+        assertParallelBindingEquals("{\"fields\":[{\"id\":\"a\",\"sortable\":true},{\"id\":\"b\"}],\"field\":{\"id\":\"c\"}}", alias);
+    }
+
+    /**
+     * An element which cannot be bound yields null in parallel binding as in sequential binding, instead of failing
+     * the whole transformation
+     */
+    @Test
+    public void testParallelBindingMalformedElement() {
+        String json = "{\"fields\":[{\"id\":\"a\"},{\"id\":{\"nested\":1}},{\"id\":\"c\"}]}";
+        JSONAlias alias = new JSONAlias().add("fields", Field.class);
+        assertParallelBindingEquals(json, alias);
+        List fields = new JSONTransformer<Object>().getEntityLists(getJSONResponse(json), alias.setParallel(true)).get("fields");
+        assertEquals(3, fields.size());
+        assertNull(fields.get(1));
+        assertEquals("c", ((Field) fields.get(2)).getId());
+    }
+
+    /**
+     * An array with an element which is not an object ends the binding in parallel as in sequential binding
+     */
+    @Test
+    public void testParallelBindingNonObjectElement() {
+        JSONAlias alias = new JSONAlias().add("fields", Field.class);
+        assertParallelBindingEquals("{\"fields\":[{\"id\":\"a\"},5,null]}", alias);
+    }
+
+    private void assertStreamingEquals(String json) {
+        JSONAlias alias = new JSONAlias("fields");
+        List<Field> expected = new JSONTransformer<Field>().getEntityList(json, Field.class, alias);
+        List<Field> actual = new StreamingJSONTransformer<Field>().getEntityList(json, Field.class, alias);
+        List<Field> actualFromResponse = new StreamingJSONTransformer<Field>().getEntityList(getJSONResponse(json), Field.class, alias);
+        Gson gson = new Gson();
+        assertEquals(gson.toJson(expected), gson.toJson(actual));
+        assertEquals(gson.toJson(expected), gson.toJson(actualFromResponse));
+    }
+
+    /**
+     * The streaming transformer binds arrays, single objects and missing aliases as {@link JSONTransformer} does
+     */
+    @Test
+    public void testStreamingTransformer() {
+        assertStreamingEquals("{\"other\":{\"a\":[1,2]},\"fields\":[{\"id\":\"a\",\"sortable\":true},{\"id\":\"b\"}]}");
+        assertStreamingEquals("{\"fields\":{\"id\":\"a\"}}");
+        assertStreamingEquals("{\"fields\":[]}");
+        assertStreamingEquals("{\"other\":[{\"id\":\"a\"}]}");
+    }
+
+    /**
+     * Primitive and null array elements fall back to {@link JSONTransformer}
+     */
+    @Test
+    public void testStreamingTransformerNonObjectElements() {
+        assertStreamingEquals("{\"fields\":[{\"id\":\"a\"},5]}");
+        assertStreamingEquals("{\"fields\":[{\"id\":\"a\"},null]}");
+        assertStreamingEquals("{\"fields\":[\"a\",\"b\"]}");
+    }
+
+    /**
+     * Duplicate top level keys fall back to {@link JSONTransformer}
+     */
+    @Test
+    public void testStreamingTransformerDuplicateKeys() {
+        assertStreamingEquals("{\"fields\":[{\"id\":\"a\"}],\"fields\":[{\"id\":\"b\"}]}");
+        assertStreamingEquals("{\"other\":1,\"fields\":[{\"id\":\"a\"}],\"other\":2}");
+    }
+
+    /**
+     * Responses which are not streamable are handed to {@link JSONTransformer} unchanged
+     */
+    @Test
+    public void testStreamingTransformerFallback() {
+        assertStreamingEquals("[{\"id\":\"a\"}]");
+        assertStreamingEquals("{\"fields\":\"a\",\"id\":\"b\"}");
+        assertStreamingEquals("{\"fields\":[{\"id\":{\"nested\":1}},{\"id\":\"b\"}]}");
+        assertStreamingEquals("{\"fields\":[{\"id\":\"a\"}],\"other\":");
+        assertStreamingEquals("not json");
+    }
+
+    private XMLAlias getXMLAlias() {
+        return new XMLAlias().add("standard", Standard.class).add("standards", Standards.class)
+                .addImplicitCollection("standard", Standards.class).addAttribute("id", Standard.class);
+    }
+
+    /**
+     * Snapshots of equally configured aliases are equal, so that they share a cached XStream instance
+     */
+    @Test
+    public void testXMLAliasKeyEquality() {
+        MyStringConverter converter = new MyStringConverter();
+        XMLAliasKey key = getXMLAlias().addConverter(converter).getKey();
+        XMLAliasKey other = getXMLAlias().addConverter(converter).getKey();
+        assertEquals(key, other);
+        assertEquals(key.hashCode(), other.hashCode());
+        assertEquals(new XMLAlias().getKey(), new XMLAlias().getKey());
+    }
+
+    /**
+     * Snapshots of differently configured aliases are not equal, so that no alias gets the XStream instance of another
+     */
+    @Test
+    public void testXMLAliasKeyInequality() {
+        XMLAliasKey key = getXMLAlias().getKey();
+        assertFalse(key.equals(getXMLAlias().add("other", Standard.class).getKey()));
+        assertFalse(key.equals(getXMLAlias().add("standard", Standards.class).getKey()));
+        assertFalse(key.equals(getXMLAlias().addImplicitCollection("other", Standards.class).getKey()));
+        assertFalse(key.equals(getXMLAlias().addAttribute("name", Standard.class).getKey()));
+        assertFalse(key.equals(getXMLAlias().processAnnotation(Standard.class).getKey()));
+        assertFalse(key.equals(getXMLAlias().addQName(new QName("urn:test", "standard"), Standard.class).getKey()));
+        XMLAlias referenceMode = getXMLAlias();
+        referenceMode.setReferenceMode(ReferenceMode.NO_REFERENCES);
+        assertFalse(key.equals(referenceMode.getKey()));
+        //Converters are compared by identity
+        assertFalse(getXMLAlias().addConverter(new MyStringConverter()).getKey().equals(getXMLAlias().addConverter(new MyStringConverter()).getKey()));
+        //The same name as alias, attribute or implicit collection gives different snapshots
+        assertFalse(new XMLAlias().add("id", Standard.class).getKey().equals(new XMLAlias().addAttribute("id", Standard.class).getKey()));
+        assertFalse(new XMLAlias().add("id", Standard.class).getKey().equals(new XMLAlias().addImplicitCollection("id", Standard.class).getKey()));
+    }
+
+    /**
+     * Changing the alias after taking a snapshot does not change the snapshot
+     */
+    @Test
+    public void testXMLAliasKeyIsSnapshot() {
+        XMLAlias xmlAlias = getXMLAlias();
+        XMLAliasKey key = xmlAlias.getKey();
+        int hashCode = key.hashCode();
+        xmlAlias.add("other", Standard.class).addImplicitCollection("other", Standards.class)
+                .addAttribute("name", Standard.class).addConverter(new MyStringConverter()).processAnnotation(Standard.class);
+        xmlAlias.setReferenceMode(ReferenceMode.NO_REFERENCES);
+        assertEquals(getXMLAlias().getKey(), key);
+        assertEquals(hashCode, key.hashCode());
+        assertEquals(2, key.getAliasTypeMap().size());
+        assertEquals(1, key.getImplicitCollectionMap().size());
+        assertEquals(1, key.getAttributeMap().size());
+        assertEquals(0, key.getConverters().size());
+        assertEquals(0, key.getAnnotatedTypeList().size());
+        assertFalse(key.equals(xmlAlias.getKey()));
+    }
 }
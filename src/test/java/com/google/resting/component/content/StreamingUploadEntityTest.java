@@ -0,0 +1,118 @@
+package com.google.resting.component.content;
+
+import com.google.resting.async.listener.RequestProgressListener;
+import com.google.resting.async.request.RequestProgress;
+import com.google.resting.async.request.RequestStatus;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingUploadEntityTest {
+
+    //Spans several chunks of the entity
+    private static final int BODY_SIZE = 150 * 1024;
+
+    /**
+     * Records the status and bytes of every progress update
+     */
+    private static final class RecordingListener implements RequestProgressListener {
+        final List<RequestStatus> statuses = new ArrayList<RequestStatus>();
+
+        final List<Long> bytes = new ArrayList<Long>();
+
+        public void onRequestProgressUpdate(RequestProgress requestProgress) {
+            statuses.add(requestProgress.getStatus());
+            bytes.add(requestProgress.getBytesTransferred());
+        }
+    }
+
+    private static byte[] body() {
+        byte[] body = new byte[BODY_SIZE];
+        for (int i = 0; i < body.length; i++)
+            body[i] = (byte) i;
+        return body;
+    }
+
+    private static byte[] write(StreamingUploadEntity entity) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        entity.writeTo(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static void assertProgress(RecordingListener listener) {
+        int last = listener.statuses.size() - 1;
+        assertTrue(last > 1);
+        for (int i = 0; i < last; i++)
+            assertEquals(RequestStatus.SENDING_TO_NETWORK, listener.statuses.get(i));
+        assertEquals(RequestStatus.COMPLETE, listener.statuses.get(last));
+        for (int i = 1; i < listener.bytes.size(); i++)
+            assertTrue(listener.bytes.get(i) >= listener.bytes.get(i - 1));
+        assertEquals(BODY_SIZE, (long) listener.bytes.get(last));
+    }
+
+    @Test
+    public void testFileBody() throws IOException {
+        Path file = Files.createTempFile("resting-test", null);
+        try {
+            Files.write(file, body());
+            RecordingListener listener = new RecordingListener();
+            StreamingUploadEntity entity = new StreamingUploadEntity(file, ContentType.APPLICATION_OCTET_STREAM, listener);
+            assertEquals(BODY_SIZE, entity.getContentLength());
+            assertFalse(entity.isChunked());
+            assertTrue(entity.isRepeatable());
+            assertArrayEquals(body(), write(entity));
+            assertProgress(listener);
+            //A repeatable entity can be written again
+            assertArrayEquals(body(), write(entity));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSupplierBody() throws IOException {
+        final AtomicInteger streams = new AtomicInteger();
+        Supplier<InputStream> supplier = new Supplier<InputStream>() {
+            public InputStream get() {
+                streams.incrementAndGet();
+                return new ByteArrayInputStream(body());
+            }
+        };
+        RecordingListener listener = new RecordingListener();
+        StreamingUploadEntity entity = new StreamingUploadEntity(supplier, -1, null, listener);
+        assertEquals(-1, entity.getContentLength());
+        assertTrue(entity.isChunked());
+        assertFalse(entity.isRepeatable());
+        assertArrayEquals(body(), write(entity));
+        assertProgress(listener);
+        //Every write asks for a new stream
+        assertArrayEquals(body(), write(entity));
+        assertEquals(2, streams.get());
+    }
+
+    @Test
+    public void testSupplierBodyWithLength() {
+        StreamingUploadEntity entity = new StreamingUploadEntity(new Supplier<InputStream>() {
+            public InputStream get() {
+                return new ByteArrayInputStream(body());
+            }
+        }, BODY_SIZE, ContentType.APPLICATION_OCTET_STREAM, null);
+        assertEquals(BODY_SIZE, entity.getContentLength());
+        assertFalse(entity.isChunked());
+    }
+
+}
@@ -0,0 +1,210 @@
+package com.google.resting.component.impl;
+
+import com.google.resting.component.EncodingTypes;
+import com.google.resting.serviceaccessor.ResponseTooLargeException;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StreamingServiceResponseTest {
+
+    /**
+     * In-memory body which records how the connection behind it was released
+     */
+    static final class ConnectionStream extends ByteArrayInputStream implements ConnectionReleaseTrigger {
+        boolean aborted;
+
+        boolean released;
+
+        ConnectionStream(String body) {
+            super(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public void releaseConnection() {
+            released = true;
+        }
+
+        public void abortConnection() {
+            aborted = true;
+        }
+
+        @Override
+        public void close() {
+            releaseConnection();
+        }
+    }
+
+    static HttpResponse newHttpResponse(InputStream content, long contentLength) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new InputStreamEntity(content, contentLength));
+        return response;
+    }
+
+    private static long drain(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[4];
+        long count = 0;
+        int n;
+        while ((n = inputStream.read(buffer)) != -1)
+            count += n;
+        return count;
+    }
+
+    private static String readAll(Reader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[4];
+        int n;
+        while ((n = reader.read(buffer)) != -1)
+            text.append(buffer, 0, n);
+        return text.toString();
+    }
+
+    @Test
+    public void testStatusAndHeaders() {
+        HttpResponse response = newHttpResponse(new ConnectionStream("body"), 4);
+        response.setStatusCode(201);
+        response.addHeader("ETag", "\"v1\"");
+        StreamingServiceResponse serviceResponse = new StreamingServiceResponse(response, EncodingTypes.UTF8);
+        assertEquals(201, serviceResponse.getStatusCode());
+        assertEquals(4, serviceResponse.getContentLength());
+        assertEquals("\"v1\"", serviceResponse.getHeaders().getETag());
+        assertEquals(1, serviceResponse.getResponseHeaders().length);
+    }
+
+    @Test
+    public void testFullyReadBodyReleasesConnection() throws IOException {
+        ConnectionStream content = new ConnectionStream("0123456789");
+        StreamingServiceResponse serviceResponse = new StreamingServiceResponse(newHttpResponse(content, 10), EncodingTypes.UTF8);
+        ReadableByteChannel channel = serviceResponse.getChannel();
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        while (channel.read(buffer) != -1) ;
+        assertEquals(10, buffer.position());
+        channel.close();
+        assertTrue(content.released);
+        assertFalse(content.aborted);
+    }
+
+    @Test
+    public void testPartlyReadBodyAbortsConnection() throws IOException {
+        ConnectionStream content = new ConnectionStream("0123456789");
+        StreamingServiceResponse serviceResponse = new StreamingServiceResponse(newHttpResponse(content, 10), EncodingTypes.UTF8);
+        assertEquals('0', serviceResponse.getInputStream().read());
+        serviceResponse.close();
+        assertTrue(content.aborted);
+        assertFalse(content.released);
+    }
+
+    @Test
+    public void testUnreadBodyAbortsConnection() throws IOException {
+        ConnectionStream content = new ConnectionStream("0123456789");
+        StreamingServiceResponse serviceResponse = new StreamingServiceResponse(newHttpResponse(content, 10), EncodingTypes.UTF8);
+        serviceResponse.close();
+        assertTrue(content.aborted);
+        try {
+            serviceResponse.getInputStream();
+            fail("Expected the closed response to refuse the body");
+        } catch (IOException e) {
+            //expected
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBodyReadOnce() throws IOException {
+        StreamingServiceResponse serviceResponse = new StreamingServiceResponse(newHttpResponse(new ConnectionStream("body"), 4), EncodingTypes.UTF8);
+        serviceResponse.getInputStream();
+        serviceResponse.getInputStream();
+    }
+
+    @Test
+    public void testReaderUsesContentTypeCharset() throws IOException {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new ByteArrayEntity("caf\u00e9".getBytes(StandardCharsets.ISO_8859_1), ContentType.create("text/plain", StandardCharsets.ISO_8859_1)));
+        StreamingServiceResponse serviceResponse = new StreamingServiceResponse(response, EncodingTypes.UTF8);
+        assertEquals("caf\u00e9", readAll(serviceResponse.getReader()));
+    }
+
+    @Test
+    public void testReaderFallsBackToRequestCharset() throws IOException {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new ByteArrayEntity("caf\u00e9".getBytes(StandardCharsets.ISO_8859_1)));
+        StreamingServiceResponse serviceResponse = new StreamingServiceResponse(response, EncodingTypes.ISO88591);
+        assertEquals("caf\u00e9", readAll(serviceResponse.getReader()));
+    }
+
+    @Test
+    public void testNoEntity() throws IOException {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 204, "No Content");
+        StreamingServiceResponse serviceResponse = new StreamingServiceResponse(response, EncodingTypes.UTF8);
+        assertEquals(-1, serviceResponse.getContentLength());
+        assertEquals("", readAll(serviceResponse.getReader()));
+        serviceResponse.close();
+    }
+
+    @Test
+    public void testContentLengthOverLimitRejected() {
+        ConnectionStream content = new ConnectionStream("0123456789");
+        try {
+            new StreamingServiceResponse(newHttpResponse(content, 10), EncodingTypes.UTF8, 9);
+            fail("Expected the announced length to be rejected");
+        } catch (ResponseTooLargeException e) {
+            assertEquals(9, e.getMaxResponseSize());
+            assertEquals(10, e.getContentLength());
+        }
+    }
+
+    @Test
+    public void testAbortWhileReading() throws IOException {
+        ConnectionStream content = new ConnectionStream("0123456789");
+        StreamingServiceResponse serviceResponse = new StreamingServiceResponse(newHttpResponse(content, -1), EncodingTypes.UTF8, 6);
+        InputStream inputStream = serviceResponse.getInputStream();
+        try {
+            drain(inputStream);
+            fail("Expected the body to be cut off");
+        } catch (ResponseTooLargeException e) {
+            assertEquals(6, e.getMaxResponseSize());
+            assertEquals(-1, e.getContentLength());
+        }
+        assertTrue(content.aborted);
+        assertFalse(content.released);
+        //Further reads see the released stream, closing again does nothing
+        serviceResponse.close();
+        assertFalse(content.released);
+    }
+
+    @Test
+    public void testBodyAtLimitRead() throws IOException {
+        ConnectionStream content = new ConnectionStream("0123456789");
+        StreamingServiceResponse serviceResponse = new StreamingServiceResponse(newHttpResponse(content, 10), EncodingTypes.UTF8, 10);
+        assertEquals(10, drain(serviceResponse.getInputStream()));
+        serviceResponse.close();
+        assertTrue(content.released);
+        assertFalse(content.aborted);
+    }
+
+    @Test
+    public void testNoLimit() throws IOException {
+        ConnectionStream content = new ConnectionStream("0123456789");
+        StreamingServiceResponse serviceResponse = new StreamingServiceResponse(newHttpResponse(content, -1), EncodingTypes.UTF8);
+        assertEquals(10, drain(serviceResponse.getInputStream()));
+        serviceResponse.close();
+        assertTrue(content.released);
+    }
+
+}
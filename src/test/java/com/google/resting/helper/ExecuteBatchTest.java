@@ -0,0 +1,133 @@
+package com.google.resting.helper;
+
+import com.google.resting.RestingBuilder;
+import com.google.resting.TestServer;
+import com.google.resting.component.impl.ServiceResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ExecuteBatchTest {
+
+    private static final long SLOW_REQUEST_MILLIS = 200;
+
+    private static TestServer first;
+
+    private static TestServer second;
+
+    private static final AtomicInteger slowRequests = new AtomicInteger();
+
+    private static volatile CountDownLatch slowRequestArrived = new CountDownLatch(1);
+
+    /**
+     * Answers with the last element of the path, so that each response tells which request it belongs to
+     */
+    private static final HttpHandler ECHO = new HttpHandler() {
+        public void handle(HttpExchange exchange) throws IOException {
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = path.substring(path.lastIndexOf('/') + 1).getBytes(StandardCharsets.UTF_8);
+            TestServer.send(exchange, 200, "text/plain", body);
+        }
+    };
+
+    @BeforeClass
+    public static void startServers() throws IOException {
+        first = new TestServer().handle("/echo", ECHO).handle("/slow", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                slowRequests.incrementAndGet();
+                slowRequestArrived.countDown();
+                try {
+                    Thread.sleep(SLOW_REQUEST_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                ECHO.handle(exchange);
+            }
+        });
+        second = new TestServer().handle("/echo", ECHO);
+    }
+
+    @AfterClass
+    public static void stopServers() {
+        first.close();
+        second.close();
+    }
+
+    private static RestingBuilder echo(TestServer server, String id) {
+        return new RestingBuilder(server.getUrl("/echo/" + id)).setPort(server.getPort());
+    }
+
+    @Test
+    public void testResultsInBuilderOrder() {
+        List<RestingBuilder> builders = new ArrayList<RestingBuilder>();
+        for (int i = 0; i < 30; i++)
+            builders.add(echo(i % 3 == 0 ? second : first, String.valueOf(i)));
+        List<ServiceResponse> responses = RestingHelper.executeBatch(builders, 4);
+        assertEquals(builders.size(), responses.size());
+        for (int i = 0; i < responses.size(); i++) {
+            assertNotNull("response " + i, responses.get(i));
+            assertEquals(String.valueOf(i), responses.get(i).getResponseString());
+        }
+    }
+
+    @Test
+    public void testFailedRequestLeavesSiblings() {
+        List<RestingBuilder> builders = new ArrayList<RestingBuilder>();
+        builders.add(echo(first, "0"));
+        //Fails with ResponseTooLargeException inside the worker
+        builders.add(echo(first, "1").setMaxResponseSize(0));
+        builders.add(echo(first, "2"));
+        List<ServiceResponse> responses = RestingHelper.executeBatch(builders, 1);
+        assertEquals("0", responses.get(0).getResponseString());
+        assertNull(responses.get(1));
+        assertEquals("2", responses.get(2).getResponseString());
+    }
+
+    @Test
+    public void testInterruptSkipsPendingRequests() throws InterruptedException {
+        slowRequests.set(0);
+        slowRequestArrived = new CountDownLatch(1);
+        final List<RestingBuilder> builders = new ArrayList<RestingBuilder>();
+        for (int i = 0; i < 10; i++)
+            builders.add(new RestingBuilder(first.getUrl("/slow/" + i)).setPort(first.getPort()));
+
+        final AtomicReference<List<ServiceResponse>> result = new AtomicReference<List<ServiceResponse>>();
+        final AtomicBoolean interruptRestored = new AtomicBoolean();
+        Thread caller = new Thread(new Runnable() {
+            public void run() {
+                result.set(RestingHelper.executeBatch(builders, 1));
+                interruptRestored.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        caller.start();
+        assertTrue(slowRequestArrived.await(10, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(10000);
+
+        assertTrue(interruptRestored.get());
+        List<ServiceResponse> responses = result.get();
+        assertEquals(builders.size(), responses.size());
+        //The request in flight completes, the ones not yet started are skipped
+        assertEquals("0", responses.get(0).getResponseString());
+        assertNull(responses.get(builders.size() - 1));
+        assertTrue(slowRequests.get() < builders.size());
+    }
+
+}
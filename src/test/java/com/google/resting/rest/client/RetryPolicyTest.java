@@ -0,0 +1,125 @@
+package com.google.resting.rest.client;
+
+import com.google.resting.component.Verb;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    private static final int SAMPLES = 1000;
+
+    @Test
+    public void testBackoffBounds() {
+        RetryPolicy retryPolicy = new RetryPolicy().setBackoff(100, 1000);
+        for (int retry = 1; retry <= 40; retry++) {
+            long ceiling = Math.min(1000, 100L << Math.min(retry - 1, 30));
+            long max = 0;
+            for (int i = 0; i < SAMPLES; i++) {
+                long backoff = retryPolicy.getBackoff(retry);
+                assertTrue("retry " + retry + ": " + backoff, backoff >= 0 && backoff <= ceiling);
+                max = Math.max(max, backoff);
+            }
+            //Full jitter spreads the backoff over the whole range
+            assertTrue("retry " + retry + ": " + max, max > ceiling / 2);
+        }
+    }
+
+    @Test
+    public void testZeroBackoff() {
+        RetryPolicy retryPolicy = new RetryPolicy().setBackoff(0, 0);
+        assertEquals(0, retryPolicy.getBackoff(1));
+        assertEquals(0, retryPolicy.getBackoff(5));
+    }
+
+    @Test
+    public void testStatusFilter() {
+        RetryPolicy retryPolicy = new RetryPolicy();
+        assertTrue(retryPolicy.isRetryableStatusCode(429));
+        assertTrue(retryPolicy.isRetryableStatusCode(HttpStatus.SC_BAD_GATEWAY));
+        assertTrue(retryPolicy.isRetryableStatusCode(HttpStatus.SC_SERVICE_UNAVAILABLE));
+        assertTrue(retryPolicy.isRetryableStatusCode(HttpStatus.SC_GATEWAY_TIMEOUT));
+        assertFalse(retryPolicy.isRetryableStatusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR));
+        assertFalse(retryPolicy.isRetryableStatusCode(HttpStatus.SC_OK));
+
+        retryPolicy.setRetryableStatusCodes(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+        assertTrue(retryPolicy.isRetryableStatusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR));
+        assertFalse(retryPolicy.isRetryableStatusCode(HttpStatus.SC_SERVICE_UNAVAILABLE));
+    }
+
+    @Test
+    public void testExceptionFilter() {
+        RetryPolicy retryPolicy = new RetryPolicy();
+        assertTrue(retryPolicy.isRetryableException(new IOException()));
+        assertTrue(retryPolicy.isRetryableException(new ConnectException()));
+
+        retryPolicy.setRetryableExceptions(SocketTimeoutException.class);
+        assertTrue(retryPolicy.isRetryableException(new SocketTimeoutException()));
+        assertFalse(retryPolicy.isRetryableException(new ConnectException()));
+        assertFalse(retryPolicy.isRetryableException(new IOException()));
+    }
+
+    @Test
+    public void testVerbFilter() {
+        RetryPolicy retryPolicy = new RetryPolicy();
+        assertTrue(retryPolicy.isRetryable(Verb.GET));
+        assertTrue(retryPolicy.isRetryable(Verb.PUT));
+        assertFalse(retryPolicy.isRetryable(Verb.POST));
+        assertTrue(retryPolicy.setRetryNonIdempotent(true).isRetryable(Verb.POST));
+        assertFalse(retryPolicy.setMaxAttempts(1).isRetryable(Verb.GET));
+    }
+
+    @Test
+    public void testRetryAfter() {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_SERVICE_UNAVAILABLE, "Service Unavailable");
+        assertEquals(-1, BaseRESTClient.getRetryAfter(response, HttpStatus.SC_SERVICE_UNAVAILABLE));
+        response.addHeader("Retry-After", "2");
+        assertEquals(2000, BaseRESTClient.getRetryAfter(response, HttpStatus.SC_SERVICE_UNAVAILABLE));
+        assertEquals(2000, BaseRESTClient.getRetryAfter(response, 429));
+        //Only 429 and 503 carry a meaningful Retry-After
+        assertEquals(-1, BaseRESTClient.getRetryAfter(response, HttpStatus.SC_BAD_GATEWAY));
+    }
+
+    @Test
+    public void testBudgetExhausted() {
+        RetryBudget retryBudget = RetryBudget.forHost("exhausted-" + System.nanoTime(), 80, 3, 0);
+        assertTrue(retryBudget.tryAcquire());
+        assertTrue(retryBudget.tryAcquire());
+        assertTrue(retryBudget.tryAcquire());
+        assertFalse(retryBudget.tryAcquire());
+        assertFalse(retryBudget.tryAcquire());
+        assertEquals(2, retryBudget.getExhaustedCount());
+        assertEquals(0, retryBudget.getAvailableTokens(), 0);
+    }
+
+    @Test
+    public void testBudgetRefill() throws InterruptedException {
+        RetryBudget retryBudget = RetryBudget.forHost("refill-" + System.nanoTime(), 80, 2, 100);
+        assertTrue(retryBudget.tryAcquire());
+        assertTrue(retryBudget.tryAcquire());
+        Thread.sleep(50);
+        assertTrue(retryBudget.tryAcquire());
+        //Refill never exceeds the capacity
+        Thread.sleep(100);
+        assertEquals(2, retryBudget.getAvailableTokens(), 0);
+    }
+
+    @Test
+    public void testBudgetSharedPerHost() {
+        String host = "shared-" + System.nanoTime();
+        RetryBudget retryBudget = RetryBudget.forHost(host, 80, 1, 0);
+        assertTrue(retryBudget == RetryBudget.forHost(host, 80, 5, 1));
+        assertTrue(retryBudget != RetryBudget.forHost(host, 8080, 1, 0));
+        assertTrue(RetryBudget.getRetryBudgets().containsKey(host + ":80"));
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.google.resting.rest.client.impl;
+
+import com.google.resting.RestingBuilder;
+import com.google.resting.TestServer;
+import com.google.resting.component.impl.ServiceResponse;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+public class AsyncRESTClientTest {
+
+    private static final String BODY = "{\"name\":\"resting\"}";
+
+    private static TestServer server;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = new TestServer()
+                .handle("/ok", TestServer.respond(200, "application/json", BODY))
+                .handle("/missing", TestServer.respond(404, "text/plain", "not found"));
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    private static CompletableFuture<ServiceResponse> invokeAsync(String path) {
+        return new RestingBuilder(server.getUrl(path)).setPort(server.getPort()).invokeAsync();
+    }
+
+    @Test
+    public void testInvokeAsync() throws Exception {
+        ServiceResponse serviceResponse = invokeAsync("/ok").get(10, TimeUnit.SECONDS);
+        assertEquals(200, serviceResponse.getStatusCode());
+        assertEquals(BODY, serviceResponse.getResponseString());
+        serviceResponse.close();
+    }
+
+    @Test
+    public void testErrorStatus() throws Exception {
+        ServiceResponse serviceResponse = invokeAsync("/missing").get(10, TimeUnit.SECONDS);
+        assertEquals(404, serviceResponse.getStatusCode());
+        assertEquals("not found", serviceResponse.getResponseString());
+    }
+
+    /**
+     * The response is built and the dependents run off the NIO reactor
+     */
+    @Test
+    public void testCompletedOffReactorThread() throws Exception {
+        String thread = invokeAsync("/ok").thenApply(new Function<ServiceResponse, String>() {
+            public String apply(ServiceResponse serviceResponse) {
+                return Thread.currentThread().getName();
+            }
+        }).get(10, TimeUnit.SECONDS);
+        assertNotNull(thread);
+        assertFalse(thread, thread.startsWith("I/O dispatcher"));
+    }
+
+    @Test
+    public void testConnectionRefused() throws Exception {
+        TestServer stopped = new TestServer();
+        int port = stopped.getPort();
+        stopped.close();
+        try {
+            new RestingBuilder("http://localhost/ok").setPort(port).invokeAsync().get(10, TimeUnit.SECONDS);
+            fail("Expected the request to fail");
+        } catch (ExecutionException e) {
+            assertNotNull(e.getCause());
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.google.resting.serviceaccessor.impl;
+
+import com.google.resting.serviceaccessor.BulkheadFullException;
+import com.google.resting.serviceaccessor.ServiceAccessException;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BulkheadTest {
+
+    private static Bulkhead newBulkhead(String name, int maxConcurrentRequests, int maxQueuedRequests) {
+        return Bulkhead.forHost(name + "-" + System.nanoTime(), 80, maxConcurrentRequests, maxQueuedRequests);
+    }
+
+    /**
+     * Starts a thread which queues in the bulkhead, and waits until it is queued
+     */
+    private static Thread queue(final Bulkhead bulkhead, final CountDownLatch acquired, final AtomicReference<Throwable> failure) throws InterruptedException {
+        int queueDepth = bulkhead.getQueueDepth();
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    bulkhead.acquire();
+                    acquired.countDown();
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        });
+        thread.start();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (bulkhead.getQueueDepth() == queueDepth && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+        assertEquals(queueDepth + 1, bulkhead.getQueueDepth());
+        return thread;
+    }
+
+    @Test
+    public void testInFlightMetrics() {
+        Bulkhead bulkhead = newBulkhead("metrics", 2, 0);
+        bulkhead.acquire();
+        bulkhead.acquire();
+        assertEquals(2, bulkhead.getInFlightCount());
+        assertEquals(0, bulkhead.getQueueDepth());
+        bulkhead.release();
+        assertEquals(1, bulkhead.getInFlightCount());
+        bulkhead.release();
+        assertEquals(0, bulkhead.getInFlightCount());
+        assertEquals(0, bulkhead.getRejectedCount());
+    }
+
+    @Test
+    public void testRejectsWhenQueueFull() throws InterruptedException {
+        Bulkhead bulkhead = newBulkhead("full", 1, 1);
+        bulkhead.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread queued = queue(bulkhead, acquired, failure);
+        try {
+            bulkhead.acquire();
+            fail("Expected the bulkhead to be full");
+        } catch (BulkheadFullException e) {
+            //expected
+        }
+        assertEquals(1, bulkhead.getRejectedCount());
+        assertEquals(1, bulkhead.getQueueDepth());
+
+        bulkhead.release();
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        queued.join(5000);
+        assertEquals(null, failure.get());
+        assertEquals(0, bulkhead.getQueueDepth());
+        assertEquals(1, bulkhead.getInFlightCount());
+        bulkhead.release();
+    }
+
+    @Test
+    public void testInterruptWhileQueued() throws InterruptedException {
+        Bulkhead bulkhead = newBulkhead("interrupt", 1, 1);
+        bulkhead.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread queued = queue(bulkhead, acquired, failure);
+        queued.interrupt();
+        queued.join(5000);
+        assertTrue(failure.get() instanceof ServiceAccessException);
+        assertEquals(0, bulkhead.getQueueDepth());
+        assertEquals(1, bulkhead.getInFlightCount());
+        bulkhead.release();
+    }
+
+}
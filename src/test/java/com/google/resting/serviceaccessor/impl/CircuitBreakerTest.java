@@ -0,0 +1,129 @@
+package com.google.resting.serviceaccessor.impl;
+
+import com.google.resting.serviceaccessor.CircuitOpenException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CircuitBreakerTest {
+
+    private static final long LONG_OPEN_DURATION = 60000;
+
+    private static CircuitBreaker newCircuitBreaker(String name, long openDuration) {
+        return CircuitBreaker.forEndpoint(name + "-" + System.nanoTime(), 80, "/", 0.5, 20, openDuration);
+    }
+
+    private static void assertRejected(CircuitBreaker circuitBreaker) {
+        try {
+            circuitBreaker.acquirePermission();
+            fail("Expected the circuit breaker to reject the call");
+        } catch (CircuitOpenException e) {
+            //expected
+        }
+    }
+
+    /**
+     * Opens the circuit with failed calls, which are all admitted while it is closed
+     */
+    private static void trip(CircuitBreaker circuitBreaker) {
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS; i++)
+            circuitBreaker.onResult(circuitBreaker.acquirePermission(), false);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testOpensAfterMinCalls() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker("opens", LONG_OPEN_DURATION);
+        for (int i = 0; i < CircuitBreaker.MIN_CALLS - 1; i++) {
+            circuitBreaker.onResult(circuitBreaker.acquirePermission(), false);
+            assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        }
+        circuitBreaker.onResult(circuitBreaker.acquirePermission(), false);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertRejected(circuitBreaker);
+        assertEquals(1, circuitBreaker.getRejectedCount());
+    }
+
+    @Test
+    public void testStaysClosedBelowThreshold() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker("closed", LONG_OPEN_DURATION);
+        for (int i = 0; i < 3 * CircuitBreaker.MIN_CALLS; i++)
+            circuitBreaker.onResult(circuitBreaker.acquirePermission(), i % 3 != 0);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testSingleHalfOpenTrial() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker("trial", 0);
+        trip(circuitBreaker);
+        long trial = circuitBreaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertRejected(circuitBreaker);
+        circuitBreaker.onResult(trial, true);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.acquirePermission();
+    }
+
+    @Test
+    public void testFailedTrialReopens() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker("reopen", 0);
+        trip(circuitBreaker);
+        long trial = circuitBreaker.acquirePermission();
+        circuitBreaker.onResult(trial, false);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testStaleOutcomeIgnored() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker("stale", 0);
+        //A slow call admitted while the circuit is closed
+        long slow = circuitBreaker.acquirePermission();
+        trip(circuitBreaker);
+        long trial = circuitBreaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+        //The slow call completes during the trial: neither closes the circuit nor frees the trial slot
+        circuitBreaker.onResult(slow, true);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertRejected(circuitBreaker);
+        circuitBreaker.onIgnored(slow);
+        assertRejected(circuitBreaker);
+
+        //The trial still decides the circuit
+        circuitBreaker.onResult(trial, false);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        //Outcomes of the closed generation do not count after the circuit has closed again
+        long secondTrial = circuitBreaker.acquirePermission();
+        circuitBreaker.onResult(secondTrial, true);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.onResult(trial, false);
+        assertEquals(0, circuitBreaker.getFailureRate(), 0);
+    }
+
+    @Test
+    public void testIgnoredTrialFreesSlot() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker("ignored", 0);
+        trip(circuitBreaker);
+        long trial = circuitBreaker.acquirePermission();
+        circuitBreaker.onIgnored(trial);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        long nextTrial = circuitBreaker.acquirePermission();
+        //The released permission no longer counts
+        circuitBreaker.onResult(trial, true);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onResult(nextTrial, true);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testIgnoredWhileClosedRecordsNothing() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker("closed-ignored", LONG_OPEN_DURATION);
+        for (int i = 0; i < 2 * CircuitBreaker.MIN_CALLS; i++)
+            circuitBreaker.onIgnored(circuitBreaker.acquirePermission());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getFailureRate(), 0);
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.google.resting.serviceaccessor.impl;
+
+import com.google.resting.component.EncodingTypes;
+import com.google.resting.component.impl.ServiceResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HedgedRequestTest {
+
+    private static final long HEDGE_DELAY = 50;
+
+    /**
+     * Attempt which keeps running when cancelled, like a request whose response is already on its way
+     */
+    private static final class InFlightAttempt extends CompletableFuture<ServiceResponse> {
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+    }
+
+    private static final class TrackingResponse extends ServiceResponse {
+        private volatile boolean closed;
+
+        TrackingResponse() {
+            super(newHttpResponse(), EncodingTypes.UTF8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    /**
+     * Hands out the attempts, recording each one
+     */
+    private static final class Attempts implements Supplier<CompletableFuture<ServiceResponse>> {
+        private final List<CompletableFuture<ServiceResponse>> sent = new CopyOnWriteArrayList<CompletableFuture<ServiceResponse>>();
+
+        private final boolean inFlight;
+
+        Attempts(boolean inFlight) {
+            this.inFlight = inFlight;
+        }
+
+        public CompletableFuture<ServiceResponse> get() {
+            CompletableFuture<ServiceResponse> attempt = inFlight ? new InFlightAttempt() : new CompletableFuture<ServiceResponse>();
+            sent.add(attempt);
+            return attempt;
+        }
+
+        CompletableFuture<ServiceResponse> awaitAttempt(int index) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (sent.size() <= index && System.currentTimeMillis() < deadline)
+                Thread.sleep(1);
+            assertTrue("Attempt " + (index + 1) + " was not sent", sent.size() > index);
+            return sent.get(index);
+        }
+    }
+
+    private static BasicHttpResponse newHttpResponse() {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new StringEntity("{}", ContentType.APPLICATION_JSON));
+        return response;
+    }
+
+    private static LatencyHistogram newHistogram(String name, int samples) {
+        LatencyHistogram histogram = LatencyHistogram.forHost(name + "-" + System.nanoTime(), 80);
+        for (int i = 0; i < samples; i++)
+            histogram.record(HEDGE_DELAY);
+        return histogram;
+    }
+
+    @Test
+    public void testNotHedgedBelowMinSamples() throws Exception {
+        Attempts attempts = new Attempts(false);
+        long hedgeCount = HedgedRequest.getHedgeCount();
+        CompletableFuture<ServiceResponse> result = HedgedRequest.execute(attempts, newHistogram("cold", HedgedRequest.MIN_SAMPLES - 1));
+        Thread.sleep(4 * HEDGE_DELAY);
+        assertEquals(1, attempts.sent.size());
+
+        ServiceResponse response = new TrackingResponse();
+        attempts.sent.get(0).complete(response);
+        assertSame(response, result.get(5, TimeUnit.SECONDS));
+        assertEquals(hedgeCount, HedgedRequest.getHedgeCount());
+    }
+
+    @Test
+    public void testNotHedgedWhenFirstAttemptIsFast() throws Exception {
+        Attempts attempts = new Attempts(false);
+        ServiceResponse response = new TrackingResponse();
+        CompletableFuture<ServiceResponse> result = HedgedRequest.execute(attempts, newHistogram("fast", HedgedRequest.MIN_SAMPLES));
+        attempts.sent.get(0).complete(response);
+        assertSame(response, result.get(5, TimeUnit.SECONDS));
+        Thread.sleep(4 * HEDGE_DELAY);
+        assertEquals(1, attempts.sent.size());
+    }
+
+    @Test
+    public void testHedgedAfterPercentile() throws Exception {
+        Attempts attempts = new Attempts(false);
+        CompletableFuture<ServiceResponse> result = HedgedRequest.execute(attempts, newHistogram("slow", HedgedRequest.MIN_SAMPLES));
+        CompletableFuture<ServiceResponse> first = attempts.sent.get(0);
+        CompletableFuture<ServiceResponse> second = attempts.awaitAttempt(1);
+        assertFalse(result.isDone());
+
+        ServiceResponse response = new TrackingResponse();
+        second.complete(response);
+        assertSame(response, result.get(5, TimeUnit.SECONDS));
+        assertTrue(first.isCancelled());
+    }
+
+    @Test
+    public void testLosingResponseClosed() throws Exception {
+        Attempts attempts = new Attempts(true);
+        CompletableFuture<ServiceResponse> result = HedgedRequest.execute(attempts, newHistogram("loser", HedgedRequest.MIN_SAMPLES));
+        CompletableFuture<ServiceResponse> second = attempts.awaitAttempt(1);
+
+        TrackingResponse winner = new TrackingResponse();
+        second.complete(winner);
+        assertSame(winner, result.get(5, TimeUnit.SECONDS));
+
+        TrackingResponse loser = new TrackingResponse();
+        attempts.sent.get(0).complete(loser);
+        assertTrue(loser.closed);
+        assertFalse(winner.closed);
+    }
+
+    @Test
+    public void testFailedAttemptLeavesOtherRunning() throws Exception {
+        Attempts attempts = new Attempts(false);
+        CompletableFuture<ServiceResponse> result = HedgedRequest.execute(attempts, newHistogram("failed", HedgedRequest.MIN_SAMPLES));
+        CompletableFuture<ServiceResponse> second = attempts.awaitAttempt(1);
+
+        attempts.sent.get(0).completeExceptionally(new IllegalStateException("first"));
+        assertFalse(result.isDone());
+        ServiceResponse response = new TrackingResponse();
+        second.complete(response);
+        assertSame(response, result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFailsWhenAllAttemptsFail() throws Exception {
+        Attempts attempts = new Attempts(false);
+        CompletableFuture<ServiceResponse> result = HedgedRequest.execute(attempts, newHistogram("all-failed", HedgedRequest.MIN_SAMPLES));
+        CompletableFuture<ServiceResponse> second = attempts.awaitAttempt(1);
+
+        attempts.sent.get(0).completeExceptionally(new IllegalStateException("first"));
+        second.completeExceptionally(new IllegalStateException("second"));
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected the hedged request to fail");
+        } catch (ExecutionException e) {
+            assertEquals("second", e.getCause().getMessage());
+        }
+    }
+
+}
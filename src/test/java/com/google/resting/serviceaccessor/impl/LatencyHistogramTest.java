@@ -0,0 +1,68 @@
+package com.google.resting.serviceaccessor.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+
+    private static LatencyHistogram newHistogram(String name) {
+        return LatencyHistogram.forHost(name + "-" + System.nanoTime(), 80);
+    }
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = newHistogram("empty");
+        assertEquals(-1, histogram.getPercentile(0.95));
+        assertEquals(0, histogram.getWindowCount());
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = newHistogram("percentiles");
+        for (int i = 100; i > 0; i--)
+            histogram.record(i);
+        assertEquals(1, histogram.getPercentile(0));
+        assertEquals(50, histogram.getPercentile(0.5));
+        assertEquals(95, histogram.getPercentile(0.95));
+        assertEquals(99, histogram.getPercentile(0.99));
+        assertEquals(100, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void testSmallCountRecomputedOnEverySample() {
+        LatencyHistogram histogram = newHistogram("small");
+        histogram.record(10);
+        assertEquals(10, histogram.getPercentile(1));
+        histogram.record(20);
+        assertEquals(20, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void testRecomputedEvery32Samples() {
+        LatencyHistogram histogram = newHistogram("recompute");
+        for (int i = 1; i <= 100; i++)
+            histogram.record(i);
+        assertEquals(100, histogram.getPercentile(1));
+        for (int i = 0; i < 31; i++)
+            histogram.record(10000);
+        //The sorted window is reused until 32 new samples have arrived
+        assertEquals(100, histogram.getPercentile(1));
+        histogram.record(10000);
+        assertEquals(10000, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void testWindowKeepsLatestSamples() {
+        LatencyHistogram histogram = newHistogram("window");
+        for (int i = 0; i < LatencyHistogram.WINDOW_SIZE; i++)
+            histogram.record(5);
+        for (int i = 0; i < LatencyHistogram.WINDOW_SIZE; i++)
+            histogram.record(7);
+        assertEquals(2 * LatencyHistogram.WINDOW_SIZE, histogram.getCount());
+        assertEquals(LatencyHistogram.WINDOW_SIZE, histogram.getWindowCount());
+        assertEquals(7, histogram.getPercentile(0));
+        assertEquals(7, histogram.getPercentile(1));
+    }
+
+}
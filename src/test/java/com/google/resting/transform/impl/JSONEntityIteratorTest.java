@@ -0,0 +1,214 @@
+package com.google.resting.transform.impl;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.resting.component.EncodingTypes;
+import com.google.resting.component.impl.StreamingServiceResponse;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONEntityIteratorTest {
+
+    static final class Item {
+        int id;
+    }
+
+    /**
+     * In-memory body which records how the connection behind it was released
+     */
+    private static final class ConnectionStream extends ByteArrayInputStream implements ConnectionReleaseTrigger {
+        boolean aborted;
+
+        boolean released;
+
+        ConnectionStream(String body) {
+            super(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public void releaseConnection() {
+            released = true;
+        }
+
+        public void abortConnection() {
+            aborted = true;
+        }
+
+        @Override
+        public void close() {
+            releaseConnection();
+        }
+    }
+
+    /**
+     * Body whose connection breaks after the given bytes
+     */
+    private static final class BrokenStream extends InputStream implements ConnectionReleaseTrigger {
+        private final ByteArrayInputStream head;
+
+        boolean aborted;
+
+        BrokenStream(String head) {
+            this.head = new ByteArrayInputStream(head.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = head.read();
+            if (b == -1)
+                throw new IOException("Connection reset");
+            return b;
+        }
+
+        public void releaseConnection() {
+        }
+
+        public void abortConnection() {
+            aborted = true;
+        }
+    }
+
+    private static StreamingServiceResponse newResponse(InputStream content) {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new InputStreamEntity(content, -1));
+        return new StreamingServiceResponse(response, EncodingTypes.UTF8);
+    }
+
+    private static List<Integer> ids(JSONEntityIterator<Item> iterator) {
+        List<Integer> ids = new ArrayList<Integer>();
+        while (iterator.hasNext())
+            ids.add(iterator.next().id);
+        return ids;
+    }
+
+    private static String items(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++)
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append('}');
+        return json.append(']').toString();
+    }
+
+    @Test
+    public void testTopLevelArray() {
+        ConnectionStream content = new ConnectionStream("[{\"id\":1},{\"id\":2}]");
+        JSONEntityIterator<Item> iterator = new JSONEntityIterator<Item>(newResponse(content), Item.class, null);
+        assertEquals(Arrays.asList(1, 2), ids(iterator));
+        assertTrue(content.released);
+        assertFalse(content.aborted);
+    }
+
+    @Test
+    public void testTopLevelObject() {
+        ConnectionStream content = new ConnectionStream("{\"id\":7}");
+        JSONEntityIterator<Item> iterator = new JSONEntityIterator<Item>(newResponse(content), Item.class, null);
+        assertEquals(Arrays.asList(7), ids(iterator));
+        assertTrue(content.released);
+    }
+
+    /**
+     * Reaching the end of the aliased array reads the rest of the document, so the connection is released for reuse
+     */
+    @Test
+    public void testFinishDrainsRestOfDocument() {
+        ConnectionStream content = new ConnectionStream("{\"meta\":{\"skip\":[1,{\"a\":null}]},\"items\":[{\"id\":1},{\"id\":2}],"
+                + "\"tail\":{\"nested\":[[1,2],{\"b\":\"]}\"}]},\"last\":true}");
+        JSONEntityIterator<Item> iterator = new JSONEntityIterator<Item>(newResponse(content), Item.class, "items");
+        assertEquals(Arrays.asList(1, 2), ids(iterator));
+        assertTrue(content.released);
+        assertFalse(content.aborted);
+    }
+
+    @Test
+    public void testAliasedObject() {
+        ConnectionStream content = new ConnectionStream("{\"item\":{\"id\":3},\"tail\":[1]}");
+        JSONEntityIterator<Item> iterator = new JSONEntityIterator<Item>(newResponse(content), Item.class, "item");
+        assertEquals(Arrays.asList(3), ids(iterator));
+        assertTrue(content.released);
+    }
+
+    @Test
+    public void testMissingAlias() {
+        ConnectionStream content = new ConnectionStream("{\"other\":[{\"id\":1}]}");
+        JSONEntityIterator<Item> iterator = new JSONEntityIterator<Item>(newResponse(content), Item.class, "items");
+        assertFalse(iterator.hasNext());
+        assertTrue(content.released);
+        assertFalse(content.aborted);
+    }
+
+    @Test
+    public void testEmptyBody() {
+        ConnectionStream content = new ConnectionStream("");
+        JSONEntityIterator<Item> iterator = new JSONEntityIterator<Item>(newResponse(content), Item.class, "items");
+        assertFalse(iterator.hasNext());
+        assertTrue(content.released);
+        assertFalse(content.aborted);
+    }
+
+    @Test
+    public void testCloseOnPartialIteration() throws IOException {
+        ConnectionStream content = new ConnectionStream(items(10000));
+        JSONEntityIterator<Item> iterator = new JSONEntityIterator<Item>(newResponse(content), Item.class, null);
+        assertEquals(0, iterator.next().id);
+        assertEquals(1, iterator.next().id);
+        iterator.close();
+        assertTrue(content.aborted);
+        assertFalse(content.released);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testMalformedElement() {
+        ConnectionStream content = new ConnectionStream("[{\"id\":1},{\"id\":}," + items(10000).substring(1));
+        JSONEntityIterator<Item> iterator = new JSONEntityIterator<Item>(newResponse(content), Item.class, null);
+        assertEquals(1, iterator.next().id);
+        try {
+            iterator.next();
+            fail("Expected a syntax error");
+        } catch (JsonSyntaxException e) {
+            //expected
+        }
+        assertTrue(content.aborted);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testUnexpectedAliasValue() {
+        ConnectionStream content = new ConnectionStream("{\"items\":5}");
+        try {
+            new JSONEntityIterator<Item>(newResponse(content), Item.class, "items");
+            fail("Expected a syntax error");
+        } catch (JsonSyntaxException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testBrokenConnection() {
+        BrokenStream content = new BrokenStream("[{\"id\":1},{\"id\":2");
+        JSONEntityIterator<Item> iterator = new JSONEntityIterator<Item>(newResponse(content), Item.class, null);
+        try {
+            ids(iterator);
+            fail("Expected an I/O error");
+        } catch (JsonIOException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertTrue(content.aborted);
+    }
+
+}